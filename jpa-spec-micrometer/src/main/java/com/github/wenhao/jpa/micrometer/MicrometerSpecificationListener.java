@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.micrometer;
+
+import com.github.wenhao.jpa.listener.SpecificationListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将条件的构建、渲染与执行发布为 Micrometer 指标
+ * <pre>
+ * SpecificationListeners.register(new MicrometerSpecificationListener(meterRegistry));
+ * </pre>
+ * 指标：jpa.spec.build、jpa.spec.render（entity）、jpa.spec.execute（entity、operation）为 Timer，
+ * jpa.spec.build.predicates、jpa.spec.render.predicates、jpa.spec.render.joins、jpa.spec.in.size 为 DistributionSummary，
+ * jpa.spec.in.shapes（渲染过的 in 值个数种数）为 Gauge
+ */
+public class MicrometerSpecificationListener implements SpecificationListener {
+    private final MeterRegistry registry;
+    private final Timer build;
+    private final DistributionSummary buildPredicates;
+    private final DistributionSummary renderPredicates;
+    private final DistributionSummary renderJoins;
+    private final DistributionSummary inSize;
+    private final Set<Integer> inShapes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<Class<?>, Timer> render = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<Object>, Timer> execute = new ConcurrentHashMap<>();
+
+    public MicrometerSpecificationListener(MeterRegistry registry) {
+        this.registry = registry;
+        this.build = Timer.builder("jpa.spec.build").register(registry);
+        this.buildPredicates = DistributionSummary.builder("jpa.spec.build.predicates").register(registry);
+        this.renderPredicates = DistributionSummary.builder("jpa.spec.render.predicates").register(registry);
+        this.renderJoins = DistributionSummary.builder("jpa.spec.render.joins").register(registry);
+        this.inSize = DistributionSummary.builder("jpa.spec.in.size").register(registry);
+        Gauge.builder("jpa.spec.in.shapes", inShapes, Set::size).register(registry);
+    }
+
+    @Override
+    public void onBuild(int predicates, long nanos) {
+        build.record(nanos, TimeUnit.NANOSECONDS);
+        buildPredicates.record(predicates);
+    }
+
+    @Override
+    public void onRender(Class<?> domainClass, int predicates, int joins, long nanos) {
+        render.computeIfAbsent(domainClass, key -> Timer.builder("jpa.spec.render")
+                .tag("entity", key.getSimpleName())
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        renderPredicates.record(predicates);
+        renderJoins.record(joins);
+    }
+
+    @Override
+    public void onInList(int size) {
+        inSize.record(size);
+        if (!inShapes.contains(size)) {
+            inShapes.add(size);
+        }
+    }
+
+    @Override
+    public void onExecute(Class<?> domainClass, String operation, long nanos) {
+        execute.computeIfAbsent(Arrays.asList(domainClass, operation), key -> Timer.builder("jpa.spec.execute")
+                .tag("entity", domainClass.getSimpleName())
+                .tag("operation", operation)
+                .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+}
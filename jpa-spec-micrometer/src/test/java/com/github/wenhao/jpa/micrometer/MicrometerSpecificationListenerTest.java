@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.micrometer;
+
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.distribution.pause.NoPauseDetector;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MicrometerSpecificationListenerTest {
+
+    private MeterRegistry registry;
+    private MicrometerSpecificationListener listener;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        registry.config().pauseDetector(new NoPauseDetector());
+        listener = new MicrometerSpecificationListener(registry);
+        SpecificationListeners.register(listener);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SpecificationListeners.unregister(listener);
+    }
+
+    @Test
+    public void should_record_build_meters() {
+        // when
+        SpecificationListeners.built(2, SpecificationListeners.start());
+
+        // then
+        assertThat(registry.get("jpa.spec.build").timer().count()).isEqualTo(1);
+        assertThat(registry.get("jpa.spec.build.predicates").summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_record_render_and_in_list_meters() {
+        // when
+        SpecificationListeners.inList(2);
+        SpecificationListeners.inList(4);
+        SpecificationListeners.inList(4);
+        SpecificationListeners.rendered(Book.class, 3, 1, SpecificationListeners.start());
+
+        // then
+        assertThat(registry.get("jpa.spec.render").tag("entity", "Book").timer().count()).isEqualTo(1);
+        assertThat(registry.get("jpa.spec.render.predicates").summary().totalAmount()).isEqualTo(3);
+        assertThat(registry.get("jpa.spec.render.joins").summary().totalAmount()).isEqualTo(1);
+        assertThat(registry.get("jpa.spec.in.size").summary().count()).isEqualTo(3);
+        assertThat(registry.get("jpa.spec.in.shapes").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_tag_executions_by_entity_and_operation() {
+        // when
+        SpecificationListeners.executed(Book.class, "findAll", SpecificationListeners.start());
+        SpecificationListeners.executed(Book.class, "findAll", SpecificationListeners.start());
+        SpecificationListeners.executed(Book.class, "count", SpecificationListeners.start());
+
+        // then
+        assertThat(registry.get("jpa.spec.execute").tags("entity", "Book", "operation", "findAll").timer().count()).isEqualTo(2);
+        assertThat(registry.get("jpa.spec.execute").tags("entity", "Book", "operation", "count").timer().count()).isEqualTo(1);
+    }
+
+    private static class Book {
+    }
+}
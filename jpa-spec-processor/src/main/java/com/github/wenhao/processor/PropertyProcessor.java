@@ -0,0 +1,233 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 为 {@code @Entity}、{@code @Embeddable} 生成属性常量类，例如 {@code PersonFields.name}、{@code PhoneFields.person.name}，
+ * 常量是 {@code CascadeField}，可直接传给 LambdaPredicateBuilder、Sorts、Assignments，查询时不再解析方法引用。
+ * <p>
+ * 关联属性（实体、嵌入对象及其集合）生成为 Path，根上是常量，Path 内是方法，避免双向关联无限展开。
+ * 生成类名的后缀默认为 {@code Fields}，可通过 {@code -Ajpaspec.suffix=} 修改；
+ * 不能用 {@code _}，Hibernate 启动时会把元模型属性注入到同名的 {@code Person_} 中。
+ */
+@SupportedAnnotationTypes({
+    "javax.persistence.Entity", "javax.persistence.Embeddable",
+    "jakarta.persistence.Entity", "jakarta.persistence.Embeddable"})
+@SupportedOptions(PropertyProcessor.SUFFIX_OPTION)
+public class PropertyProcessor extends AbstractProcessor {
+    static final String SUFFIX_OPTION = "jpaspec.suffix";
+    static final String DEFAULT_SUFFIX = "Fields";
+    private static final String CASCADE_FIELD = "com.github.wenhao.lambda.CascadeField";
+    private static final String[] PERSISTENCE_PACKAGES = {"javax.persistence.", "jakarta.persistence."};
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.CLASS && generated.add(element.toString())) {
+                    generate((TypeElement) element);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = packageOf(type);
+        String simpleName = type.getSimpleName() + suffix();
+        String typeName = type.getQualifiedName().toString();
+        Map<String, VariableElement> fields = fields(type);
+
+        StringBuilder constants = new StringBuilder();
+        StringBuilder members = new StringBuilder();
+        StringBuilder initializers = new StringBuilder();
+        StringBuilder methods = new StringBuilder();
+        for (VariableElement field : fields.values()) {
+            String name = field.getSimpleName().toString();
+            String declaring = ((TypeElement) field.getEnclosingElement()).getQualifiedName() + ".class";
+            TypeElement target = target(field.asType());
+            if (target != null) {
+                String path = pathOf(target);
+                constants.append(String.format("    public static final %s<%s> %s = new %s<>(null, %s, \"%s\");%n",
+                    path, typeName, name, path, declaring, name));
+                methods.append(String.format("%n        public %s<T> %s() {%n            return new %s<>(this, %s, \"%s\");%n        }%n",
+                    path, name, path, declaring, name));
+            } else {
+                String valueType = valueType(field.asType());
+                constants.append(String.format("    public static final %s<%s, %s> %s = %s.attribute(null, %s, \"%s\");%n",
+                    CASCADE_FIELD, typeName, valueType, name, CASCADE_FIELD, declaring, name));
+                members.append(String.format("        public final %s<T, %s> %s;%n", CASCADE_FIELD, valueType, name));
+                initializers.append(String.format("            this.%s = attribute(this, %s, \"%s\");%n", name, declaring, name));
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n * ").append(type.getSimpleName()).append(" 的属性常量，由 ")
+            .append(getClass().getName()).append(" 生成，请勿修改\n */\n")
+            .append("public final class ").append(simpleName).append(" {\n")
+            .append(constants)
+            .append("\n    private ").append(simpleName).append("() {\n    }\n\n")
+            .append("    public static class Path<T> extends ").append(CASCADE_FIELD).append("<T, ").append(typeName).append("> {\n")
+            .append(members)
+            .append("\n        public Path(").append(CASCADE_FIELD).append(" parent, Class<?> declaringClass, String name) {\n")
+            .append("            super(parent, declaringClass, name);\n")
+            .append(initializers)
+            .append("        }\n")
+            .append(methods)
+            .append("    }\n}\n");
+
+        String qualifiedName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "failed to generate " + qualifiedName + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * 持久化属性，包括 @MappedSuperclass 与父实体上的属性，父类在前；跳过 static、transient 与 @Transient
+     */
+    private Map<String, VariableElement> fields(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            hierarchy.add(0, current);
+        }
+        Map<String, VariableElement> fields = new LinkedHashMap<>();
+        for (TypeElement current : hierarchy) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                Set<Modifier> modifiers = field.getModifiers();
+                if (!modifiers.contains(Modifier.STATIC) && !modifiers.contains(Modifier.TRANSIENT) && !annotated(field, "Transient")) {
+                    fields.put(field.getSimpleName().toString(), field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return annotated(element, "MappedSuperclass") || annotated(element, "Entity") ? element : null;
+    }
+
+    /**
+     * 关联目标：实体、嵌入对象，或以它们为元素（Map 取值）的集合；其他返回 null
+     */
+    private TypeElement target(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        DeclaredType declared = (DeclaredType) type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (annotated(element, "Entity") || annotated(element, "Embeddable")) {
+            return element;
+        }
+        List<? extends TypeMirror> arguments = declared.getTypeArguments();
+        if (!arguments.isEmpty() && (isSubtype(type, "java.util.Collection") || isSubtype(type, "java.util.Map"))) {
+            return target(arguments.get(arguments.size() - 1));
+        }
+        return null;
+    }
+
+    private boolean isSubtype(TypeMirror type, String className) {
+        TypeElement element = processingEnv.getElementUtils().getTypeElement(className);
+        return element != null && processingEnv.getTypeUtils().isAssignable(
+            processingEnv.getTypeUtils().erasure(type), processingEnv.getTypeUtils().erasure(element.asType()));
+    }
+
+    private String valueType(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        if (type.getKind() == TypeKind.TYPEVAR) {
+            return processingEnv.getTypeUtils().erasure(type).toString();
+        }
+        return type.toString();
+    }
+
+    private String pathOf(TypeElement target) {
+        String packageName = packageOf(target);
+        String name = target.getSimpleName() + suffix() + ".Path";
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    private String packageOf(TypeElement type) {
+        PackageElement element = processingEnv.getElementUtils().getPackageOf(type);
+        return element.isUnnamed() ? "" : element.getQualifiedName().toString();
+    }
+
+    private String suffix() {
+        String suffix = processingEnv.getOptions().get(SUFFIX_OPTION);
+        return suffix == null || suffix.isEmpty() ? DEFAULT_SUFFIX : suffix;
+    }
+
+    private static boolean annotated(Element element, String simpleName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            for (String packageName : PERSISTENCE_PACKAGES) {
+                if (name.equals(packageName + simpleName)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
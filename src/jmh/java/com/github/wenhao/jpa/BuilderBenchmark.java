@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.model.IdCard;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.PersonFields;
+import com.github.wenhao.lambda.CascadeField;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 条件构造：空的 and/or，以及同一组条件分别以属性名、方法引用、CascadeField 常量、生成的属性常量构造
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuilderBenchmark {
+    private static final CascadeField<Person, String> NAME = CascadeField.of(Person::getName);
+    private static final CascadeField<Person, Integer> AGE = CascadeField.of(Person::getAge);
+    private static final CascadeField<Person, String> NICK_NAME = CascadeField.of(Person::getNickName);
+    private static final CascadeField<Person, String> ID_CARD_NUMBER = CascadeField.of(Person::getIdCard).with(IdCard::getNumber);
+
+    @Benchmark
+    public Specification<Person> and() {
+        return Specifications.<Person>and().build();
+    }
+
+    @Benchmark
+    public Specification<Person> or() {
+        return Specifications.<Person>or().build();
+    }
+
+    @Benchmark
+    public Specification<Person> string() {
+        return Specifications.<Person>and()
+                .eq("name", "Jack")
+                .gt("age", 18)
+                .like("nickName", "%ja%")
+                .eq("idCard.number", "5101")
+                .build();
+    }
+
+    @Benchmark
+    public Specification<Person> lambda() {
+        return Specifications.<Person>and().lambda()
+                .eq(Person::getName, "Jack")
+                .gt(Person::getAge, 18)
+                .like(Person::getNickName, "%ja%")
+                .eq(CascadeField.of(Person::getIdCard).with(IdCard::getNumber), "5101")
+                .build();
+    }
+
+    @Benchmark
+    public Specification<Person> cascade() {
+        return Specifications.<Person>and().lambda()
+                .eq(NAME, "Jack")
+                .gt(AGE, 18)
+                .like(NICK_NAME, "%ja%")
+                .eq(ID_CARD_NUMBER, "5101")
+                .build();
+    }
+
+    @Benchmark
+    public Specification<Person> generated() {
+        return Specifications.<Person>and().lambda()
+                .eq(PersonFields.name, "Jack")
+                .gt(PersonFields.age, 18)
+                .like(PersonFields.nickName, "%ja%")
+                .eq(PersonFields.idCard.number, "5101")
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分页查询：内容查询与计数查询依次执行（findAll）与并发执行（findAllInParallel），H2 内存库，按姓名排序取第 20 页
+ * <p>
+ * 内存库的查询在应用线程上执行，没有网络往返，也没有数据库服务器上的执行时间。
+ * latency 为每条语句额外等待的毫秒数，模拟往返延迟与服务器上的执行时间，这部分等待是并发执行能重叠的；
+ * latency 为 0 时两者的差别只是线程切换与事务开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageBenchmark {
+    private static final int BATCH_SIZE = 1000;
+
+    @Param("2000")
+    private int rows;
+
+    @Param({"0", "5", "20"})
+    private int latency;
+
+    private ConfigurableApplicationContext context;
+    private PersonRepository personRepository;
+    private Specification<Person> specification;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(Application.class)
+                .properties("spring.datasource.url=jdbc:h2:mem:jmh-page;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" + LatencyInspector.class.getName())
+                .run();
+        personRepository = context.getBean(PersonRepository.class);
+        insert(context.getBean(JdbcTemplate.class));
+        LatencyInspector.latency = latency;
+
+        specification = Specifications.<Person>and()
+                .like("name", "Person%")
+                .between("age", 20, 60)
+                .build();
+        pageable = PageRequest.of(19, 20, Sort.by("name"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        LatencyInspector.latency = 0;
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Person> sequential() {
+        return personRepository.findAll(specification, pageable);
+    }
+
+    @Benchmark
+    public Page<Person> parallel() {
+        return personRepository.findAllInParallel(specification, pageable);
+    }
+
+    private void insert(JdbcTemplate jdbcTemplate) {
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= rows; id++) {
+            batch.add(new Object[] {id, id % 80, "Person" + id, "nick" + id, "company" + id % 100, id % 2 == 0});
+            if (batch.size() == BATCH_SIZE || id == rows) {
+                jdbcTemplate.batchUpdate("insert into person (id, age, name, nick_name, company, married) values (?, ?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 每条语句执行前等待 latency 毫秒
+     */
+    public static class LatencyInspector implements StatementInspector {
+        static volatile int latency;
+
+        @Override
+        public String inspect(String sql) {
+            if (latency > 0) {
+                try {
+                    Thread.sleep(latency);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return sql;
+        }
+    }
+}
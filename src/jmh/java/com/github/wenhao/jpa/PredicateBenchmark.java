@@ -0,0 +1,139 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.model.Address;
+import com.github.wenhao.jpa.model.IdCard;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.Phone;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.dialect.H2Dialect;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * build().toPredicate 渲染到 Hibernate 的 CriteriaBuilder，每次新建 CriteriaQuery 与 Root，与仓库中一次查询的开销一致
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredicateBenchmark {
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder cb;
+    private Specification<Person> simple;
+    private Specification<Person> joined;
+    private Specification<Person> nested;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.DIALECT, H2Dialect.class.getName())
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:jmh")
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Person.class)
+                .addAnnotatedClass(Phone.class)
+                .addAnnotatedClass(Address.class)
+                .addAnnotatedClass(IdCard.class)
+                .buildMetadata()
+                .buildSessionFactory();
+        cb = sessionFactory.getCriteriaBuilder();
+
+        simple = Specifications.<Person>and()
+                .eq("name", "Jack")
+                .ge("age", 18)
+                .like("nickName", "%ja%")
+                .build();
+        joined = Specifications.<Person>and()
+                .eq("idCard.number", "5101")
+                .eq("phones.brand", "HuaWei")
+                .in("addresses.street", Arrays.asList("Chengdu", "Sichuan", "GaoXin"))
+                .build();
+        nested = Specifications.<Person>and()
+                .between("age", 18, 30)
+                .predicate(Specifications.<Person>or()
+                        .eq("name", "Jack", "Eric")
+                        .like("company", "%Tech%")
+                        .build())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate simple() {
+        return render(simple);
+    }
+
+    @Benchmark
+    public Predicate joined() {
+        return render(joined);
+    }
+
+    @Benchmark
+    public Predicate nested() {
+        return render(nested);
+    }
+
+    @Benchmark
+    public Predicate buildAndRender() {
+        return render(Specifications.<Person>and()
+                .eq("name", "Jack")
+                .ge("age", 18)
+                .eq("phones.brand", "HuaWei")
+                .build());
+    }
+
+    private Predicate render(Specification<Person> specification) {
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+        return specification.toPredicate(root, query, cb);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.lambda;
+
+import com.github.wenhao.jpa.model.IdCard;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.Phone;
+import com.github.wenhao.jpa.specification.EqualSpecification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 级联属性路径：shared 为静态常量上的重复调用，应当不分配内存；fresh 为每次新建 CascadeField 的开销。
+ * 运行时加上 -prof gc 查看 gc.alloc.rate.norm
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CascadeFieldBenchmark {
+    private static final CascadeField<Phone, String> CASCADE = CascadeField.of(Phone::getPerson).with(Person::getIdCard).with(IdCard::getNumber);
+
+    @Benchmark
+    public String sharedPath() {
+        return CASCADE.getFieldName(".");
+    }
+
+    @Benchmark
+    public List<Field> sharedFields() {
+        return CASCADE.getFields();
+    }
+
+    @Benchmark
+    public EqualSpecification<Phone> sharedPredicate() {
+        return new EqualSpecification<>(CASCADE.getFieldName("."), "5101");
+    }
+
+    @Benchmark
+    public String freshPath() {
+        return CascadeField.of(Phone::getPerson).with(Person::getIdCard).with(IdCard::getNumber).getFieldName(".");
+    }
+}
@@ -1,16 +1,29 @@
 package com.github.wenhao.jpa;
 
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import com.github.wenhao.jpa.specification.EqualSpecification;
+import com.github.wenhao.jpa.specification.InClausePadding;
+import com.github.wenhao.jpa.specification.InSpecification;
+import com.github.wenhao.jpa.specification.NotEqualSpecification;
+import com.github.wenhao.jpa.specification.NotInSpecification;
+import com.github.wenhao.jpa.specification.PropertyPaths;
+import com.github.wenhao.jpa.specification.ValuesSpecification;
 import org.springframework.data.jpa.domain.Specification;
 
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
+import static javax.persistence.criteria.Predicate.BooleanOperator.AND;
 import static javax.persistence.criteria.Predicate.BooleanOperator.OR;
 
 /**
@@ -19,16 +32,38 @@ import static javax.persistence.criteria.Predicate.BooleanOperator.OR;
  */
 public class AbstractPredicateBuilder<T> {
     private final Predicate.BooleanOperator operator;
-    private List<Specification<T>> specifications;
+    private final Class<T> domainClass;
+    private final List<Specification<T>> specifications;
+    private final List<Specification<T>> fetches;
+    private final Map<String, Object> hints;
+    private final Options options;
 
     public AbstractPredicateBuilder(Predicate.BooleanOperator operator) {
+        this(operator, null);
+    }
+
+    /**
+     * @param domainClass 条件所属的实体类，build/compile 时以登记的 Metamodel 校验路径，见 {@link PropertyPaths#validate}
+     */
+    public AbstractPredicateBuilder(Predicate.BooleanOperator operator, Class<T> domainClass) {
         this.operator = operator;
+        this.domainClass = domainClass;
         this.specifications = new ArrayList<>();
+        this.fetches = new ArrayList<>();
+        this.hints = new LinkedHashMap<>();
+        this.options = new Options();
     }
 
+    /**
+     * 切换视图（如 lambda()）时使用，与原 builder 共用条件、抓取、提示与开关，不链式调用时添加的条件或设置的开关同样属于原 builder
+     */
     public AbstractPredicateBuilder(AbstractPredicateBuilder builder) {
         this.operator = builder.operator;
+        this.domainClass = builder.domainClass;
         this.specifications = builder.specifications;
+        this.fetches = builder.fetches;
+        this.hints = builder.hints;
+        this.options = builder.options;
     }
 
     public <R extends AbstractPredicateBuilder<T>> R predicate(Specification specification) {
@@ -49,16 +84,174 @@ public class AbstractPredicateBuilder<T> {
         return (R) this;
     }
 
+    /**
+     * 添加抓取，抓取不参与 and/or，在条件之前渲染
+     */
+    protected void addFetch(boolean condition, Supplier<Specification<T>> supplier) {
+        if (condition) {
+            this.fetches.add(supplier.get());
+        }
+    }
+
+    /**
+     * 添加查询提示，见 {@link ExecutionHints}；值为 null 时移除
+     */
+    protected void addHint(String name, Object value) {
+        if (value == null) {
+            this.hints.remove(name);
+        } else {
+            this.hints.put(name, value);
+        }
+    }
+
+    protected void setInClausePadding(boolean inClausePadding) {
+        this.options.inClausePadding = inClausePadding;
+    }
+
+    protected void setInClauseSplitting(boolean inClauseSplitting) {
+        this.options.inClauseSplitting = inClauseSplitting;
+    }
+
+    protected void setOptimize(boolean optimize) {
+        this.options.optimize = optimize;
+    }
+
+    protected void setSemiJoin(boolean semiJoin) {
+        this.options.semiJoin = semiJoin;
+    }
+
+    /**
+     * 生成当前条件的不可变快照（条件复制到数组中），之后对 builder 的修改不会影响它。
+     * 快照可以缓存并在多个线程间共享，见 {@link ComposedSpecification}。
+     */
     public Specification<T> build() {
-        return (Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) -> {
-            Predicate[] predicates = new Predicate[specifications.size()];
-            for (int i = 0; i < specifications.size(); i++) {
-                predicates[i] = specifications.get(i).toPredicate(root, query, cb);
+        long start = SpecificationListeners.start();
+        return built(validate(new ComposedSpecification<>(operator, specifications(false), fetches, false, options.semiJoin, hints)), start);
+    }
+
+    /**
+     * 编译模式：比较值渲染成参数占位，执行时再绑定，相同结构的条件共用一个查询计划。
+     * 需要仓库以 {@link com.github.wenhao.jpa.repository.SimpleSpecificationRepository} 为基类才会绑定参数。
+     * 与 {@link #build()} 一样返回不可变快照。
+     */
+    public Specification<T> compile() {
+        long start = SpecificationListeners.start();
+        return built(validate(new ComposedSpecification<>(operator, specifications(true), fetches, true, options.semiJoin, hints)), start);
+    }
+
+    private ComposedSpecification<T> validate(ComposedSpecification<T> specification) {
+        if (domainClass != null) {
+            PropertyPaths.validate(domainClass, specification.getPaths());
+        }
+        return specification;
+    }
+
+    private Specification<T> built(ComposedSpecification<T> specification, long start) {
+        if (start != 0L) {
+            SpecificationListeners.built(specification.getPredicateCount(), start);
+        }
+        return specification;
+    }
+
+    private List<Specification<T>> specifications(boolean compiled) {
+        List<Specification<T>> result = options.optimize ? PredicateOptimizer.optimize(operator, options.semiJoin, specifications) : specifications;
+        result = options.inClauseSplitting ? split(result, compiled) : result;
+        return options.inClausePadding ? pad(result) : result;
+    }
+
+    /**
+     * in/not in 的值补齐到 2 的幂，包括嵌套的组合条件；拆分时补齐后不超过 {@link InSpecification#CHUNK_SIZE}
+     */
+    private List<Specification<T>> pad(List<Specification<T>> specifications) {
+        int limit = options.inClauseSplitting ? InSpecification.CHUNK_SIZE : Integer.MAX_VALUE;
+        return rewrite(specifications, specification -> {
+            Class<?> type = specification.getClass();
+            if (type != InSpecification.class && type != NotInSpecification.class) {
+                return specification;
             }
-            if (Objects.equals(predicates.length, 0)) {
-                return null;
+            InSpecification<T> in = (InSpecification<T>) specification;
+            Collection<?> padded = InClausePadding.pad(in.getValues(), limit);
+            if (padded == in.getValues()) {
+                return in;
             }
-            return OR.equals(operator) ? cb.or(predicates) : cb.and(predicates);
-        };
+            return type == InSpecification.class ? new InSpecification<>(in.getPath(), padded) : new NotInSpecification<>(in.getPath(), padded);
+        });
+    }
+
+    /**
+     * 超过 {@link InSpecification#CHUNK_SIZE} 个值的 in 拆分成多个 in 以 or 连接，not in 拆分后以 and 连接；
+     * 多值的 eq/ne（包括优化时合并出的）渲染为 in/not in，同样拆分。嵌套的组合条件同样拆分。
+     * <p>
+     * 拆分出的组合不是半连接模式，由所在组合按集合关联分组，与同一关联上的其它条件放在同一个 exists 中
+     */
+    private List<Specification<T>> split(List<Specification<T>> specifications, boolean compiled) {
+        return rewrite(specifications, specification -> {
+            Class<?> type = specification.getClass();
+            List<Specification<T>> chunks = new ArrayList<>();
+            if (type == InSpecification.class || type == NotInSpecification.class) {
+                InSpecification<T> in = (InSpecification<T>) specification;
+                if (in.getValues() == null || in.getValues().size() <= InSpecification.CHUNK_SIZE) {
+                    return specification;
+                }
+                for (List<Object> chunk : InSpecification.partition(in.getValues(), InSpecification.CHUNK_SIZE)) {
+                    chunks.add(type == InSpecification.class ? new InSpecification<>(in.getPath(), chunk) : new NotInSpecification<>(in.getPath(), chunk));
+                }
+            } else if (type == EqualSpecification.class || type == NotEqualSpecification.class) {
+                ValuesSpecification<T> values = (ValuesSpecification<T>) specification;
+                Object[] array = values.getValues();
+                List<Object> nonNullValues = array == null ? Collections.emptyList() : Arrays.stream(array).filter(Objects::nonNull).collect(Collectors.toList());
+                if (nonNullValues.size() <= InSpecification.CHUNK_SIZE) {
+                    return specification;
+                }
+                for (List<Object> chunk : InSpecification.partition(nonNullValues, InSpecification.CHUNK_SIZE)) {
+                    chunks.add(type == EqualSpecification.class
+                            ? new EqualSpecification<>(values.getPath(), chunk.toArray())
+                            : new NotEqualSpecification<>(values.getPath(), chunk.toArray()));
+                }
+                // not in 本身不匹配 null，ne 中的 null 只在全为 null 时起作用
+                if (type == EqualSpecification.class && nonNullValues.size() < array.length) {
+                    chunks.add(new EqualSpecification<>(values.getPath(), (Object) null));
+                }
+            } else {
+                return specification;
+            }
+            boolean in = type == InSpecification.class || type == EqualSpecification.class;
+            return new ComposedSpecification<>(in ? OR : AND, chunks, Collections.emptyList(), compiled, false);
+        });
+    }
+
+    /**
+     * 改写条件，递归进入嵌套的组合条件；rewrite 只作用于组合以外的条件，原样返回表示不改写，没有改写的组合条件原样保留
+     */
+    private static <T> List<Specification<T>> rewrite(List<Specification<T>> specifications, UnaryOperator<Specification<T>> rewrite) {
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        boolean changed = false;
+        for (Specification<T> specification : specifications) {
+            Specification<T> rewritten = specification;
+            if (specification instanceof ComposedSpecification) {
+                ComposedSpecification<T> composed = (ComposedSpecification<T>) specification;
+                List<Specification<T>> children = composed.getSpecifications();
+                List<Specification<T>> rewrittenChildren = rewrite(children, rewrite);
+                if (rewrittenChildren != children) {
+                    rewritten = new ComposedSpecification<>(composed.getOperator(), rewrittenChildren, composed.getFetches(),
+                            composed.isCompiled(), composed.isSemiJoin(), composed.getHints());
+                }
+            } else if (specification != null) {
+                rewritten = rewrite.apply(specification);
+            }
+            changed |= rewritten != specification;
+            result.add(rewritten);
+        }
+        return changed ? result : specifications;
+    }
+
+    /**
+     * 构建开关，与条件列表一样由各视图共用，build/compile 时读取
+     */
+    private static final class Options {
+        private boolean inClausePadding;
+        private boolean inClauseSplitting;
+        private boolean optimize;
+        private boolean semiJoin;
     }
 }
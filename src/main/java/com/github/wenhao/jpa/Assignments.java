@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.lambda.CascadeField;
+import com.github.wenhao.lambda.LambdaUtils;
+import com.github.wenhao.lambda.SerializableFunction;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 批量更新的赋值，见 {@link com.github.wenhao.jpa.repository.SpecificationRepository#update}
+ * <p>
+ * 只能赋值实体自身的属性（包括嵌入对象的属性），不能经过关联；同一属性多次赋值时后者生效。
+ */
+public final class Assignments<T> {
+    private static final String DELIMITER = ".";
+    private final Map<String, Object> values = new LinkedHashMap<>();
+
+    private Assignments() {
+    }
+
+    public static <T> Assignments<T> builder() {
+        return new Assignments<>();
+    }
+
+    public Assignments<T> set(String property, Object value) {
+        return set(true, property, value);
+    }
+
+    public Assignments<T> set(boolean condition, String property, Object value) {
+        if (condition) {
+            values.put(property, value);
+        }
+        return this;
+    }
+
+    public <R> Assignments<T> set(SerializableFunction<T, R> getterFunc, R value) {
+        return set(true, getterFunc, value);
+    }
+
+    public <R> Assignments<T> set(boolean condition, SerializableFunction<T, R> getterFunc, R value) {
+        return condition ? set(true, LambdaUtils.getField(getterFunc).getName(), value) : this;
+    }
+
+    public <R> Assignments<T> set(CascadeField<T, R> cascade, R value) {
+        return set(true, cascade, value);
+    }
+
+    /**
+     * 嵌入对象的属性赋值
+     */
+    public <R> Assignments<T> set(boolean condition, CascadeField<T, R> cascade, R value) {
+        return condition ? set(true, cascade.getFieldName(DELIMITER), value) : this;
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * 属性路径到值，按赋值顺序
+     */
+    public Map<String, Object> getValues() {
+        return Collections.unmodifiableMap(values);
+    }
+}
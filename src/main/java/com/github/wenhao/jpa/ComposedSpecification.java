@@ -0,0 +1,358 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import com.github.wenhao.jpa.specification.ContextualSpecification;
+import com.github.wenhao.jpa.specification.ExistsSpecification;
+import com.github.wenhao.jpa.specification.Fingerprint;
+import com.github.wenhao.jpa.specification.PropertyPaths;
+import com.github.wenhao.jpa.specification.SpecificationContext;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.ManagedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static javax.persistence.criteria.Predicate.BooleanOperator.OR;
+
+/**
+ * 由 {@link AbstractPredicateBuilder} 组合出的 Specification
+ * <p>
+ * 编译模式（{@link AbstractPredicateBuilder#compile()}）下，由
+ * {@link com.github.wenhao.jpa.repository.SimpleSpecificationRepository} 执行时比较值以参数绑定，
+ * 其它方式执行时与普通模式一致。
+ * <p>
+ * 线程安全：创建时把条件复制到数组中，之后不再变化，可以保存在静态字段中由多个线程同时使用。
+ * 内置条件的属性和比较值在构造时确定，传入 in/eq 等的集合与数组在构造条件时复制，之后修改它们不影响已构建的条件。
+ * 自定义的 Specification 需要自行保证线程安全。
+ * <p>
+ * and 中任一条件恒假、or 中全部条件恒假时整个组合恒假，见 {@link #isUnsatisfiable()}。
+ * <p>
+ * 半连接模式下，路径经过集合关联的内置条件按第一个集合关联分组，每组渲染为一个 exists 子查询，
+ * 同组条件作用在同一个关联对象上；不使用半连接时，经过集合关联的条件各自 join，可以匹配不同的关联对象，
+ * 见 {@link com.github.wenhao.jpa.specification.JoinRegistry}。分组只在当前这一层组合内进行，
+ * 全部条件经过同一个集合关联的非半连接嵌套组合（如拆分出的 in）作为一个条件参与分组。
+ * <p>
+ * 抓取（{@link com.github.wenhao.jpa.specification.FetchSpecification}）在条件之前渲染，条件复用抓取产生的 join。
+ * <p>
+ * 结构相等：操作符、模式和各条件相同的组合相等，可以作为缓存的键，见 {@link #getFingerprint()}。
+ * 查询提示（{@link #getHints()}）不影响查询结果，不参与结构相等。
+ */
+public class ComposedSpecification<T> implements ContextualSpecification<T> {
+    private static final Fingerprint UNKNOWN = new Fingerprint("");
+
+    private final Predicate.BooleanOperator operator;
+    private final Specification<T>[] specifications;
+    private final Specification<T>[] fetches;
+    private final boolean compiled;
+    private final boolean semiJoin;
+    private final boolean unsatisfiable;
+    private final Map<String, Object> hints;
+    private transient Fingerprint fingerprint;
+    private transient volatile ManagedType<?> validated;
+
+    ComposedSpecification(Predicate.BooleanOperator operator, List<Specification<T>> specifications,
+                          List<Specification<T>> fetches, boolean compiled, boolean semiJoin) {
+        this(operator, specifications, fetches, compiled, semiJoin, Collections.emptyMap());
+    }
+
+    ComposedSpecification(Predicate.BooleanOperator operator, List<Specification<T>> specifications,
+                          List<Specification<T>> fetches, boolean compiled, boolean semiJoin, Map<String, Object> hints) {
+        this.hints = hints.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(hints));
+        this.operator = operator;
+        this.specifications = specifications.toArray(new Specification[0]);
+        this.fetches = fetches.toArray(new Specification[0]);
+        this.compiled = compiled;
+        this.semiJoin = semiJoin;
+        this.unsatisfiable = unsatisfiable(operator, this.specifications);
+    }
+
+    public boolean isCompiled() {
+        return compiled;
+    }
+
+    public boolean isSemiJoin() {
+        return semiJoin;
+    }
+
+    public Predicate.BooleanOperator getOperator() {
+        return operator;
+    }
+
+    public List<Specification<T>> getSpecifications() {
+        return Collections.unmodifiableList(Arrays.asList(specifications));
+    }
+
+    public List<Specification<T>> getFetches() {
+        return Collections.unmodifiableList(Arrays.asList(fetches));
+    }
+
+    /**
+     * 查询提示，见 {@link ExecutionHints}；只有直接执行的最外层组合的提示生效
+     */
+    public Map<String, Object> getHints() {
+        return hints;
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return unsatisfiable;
+    }
+
+    /**
+     * 抓取与全部条件的路径，任一条件无法确定时为 null
+     */
+    @Override
+    public Set<String> getPaths() {
+        Set<String> paths = new LinkedHashSet<>();
+        for (Specification<T>[] group : Arrays.asList(fetches, specifications)) {
+            for (Specification<T> specification : group) {
+                Set<String> child = ContextualSpecification.paths(specification);
+                if (child == null) {
+                    return null;
+                }
+                paths.addAll(child);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * 形状为 {@code AND[semiJoin,compiled]{fetch{...},条件...}}，首次使用时计算并缓存；
+     * 包含无法识别的自定义条件时为 null
+     */
+    @Override
+    public Fingerprint getFingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            List<Fingerprint> parts = new ArrayList<>(specifications.length + 1);
+            if (fetches.length > 0) {
+                parts.add(Fingerprint.compose("fetch", fingerprints(fetches)));
+            }
+            parts.addAll(fingerprints(specifications));
+            String prefix = operator.name() + (semiJoin ? "[semiJoin]" : "") + (compiled ? "[compiled]" : "");
+            result = Fingerprint.compose(prefix, parts);
+            fingerprint = result == null ? UNKNOWN : result;
+        }
+        return result == UNKNOWN ? null : result;
+    }
+
+    /**
+     * 操作符、模式、抓取和各条件（按 equals）都相同时相等
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        ComposedSpecification<?> that = (ComposedSpecification<?>) o;
+        return operator == that.operator && compiled == that.compiled && semiJoin == that.semiJoin
+                && Arrays.equals(specifications, that.specifications) && Arrays.equals(fetches, that.fetches);
+    }
+
+    @Override
+    public int hashCode() {
+        Fingerprint fingerprint = getFingerprint();
+        if (fingerprint != null) {
+            return fingerprint.hashCode();
+        }
+        return Objects.hash(operator, compiled, semiJoin, Arrays.hashCode(specifications), Arrays.hashCode(fetches));
+    }
+
+    /**
+     * 条件数，嵌套的 and/or 按其中的条件计数
+     */
+    public int getPredicateCount() {
+        int count = 0;
+        for (Specification<T> specification : specifications) {
+            count += specification instanceof ComposedSpecification ? ((ComposedSpecification<T>) specification).getPredicateCount() : 1;
+        }
+        return count;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        long start = SpecificationListeners.start();
+        validate(root);
+        Predicate predicate = render(root, query, cb, context);
+        if (start != 0L) {
+            SpecificationListeners.rendered(root.getJavaType(), getPredicateCount(), joins(root), start);
+        }
+        return predicate;
+    }
+
+    /**
+     * 以 Root 的 Metamodel 解析并校验抓取与内置条件的全部路径，无效路径在添加任何 join 之前失败。
+     * 不需要以实体类创建 builder；属性链按（Root 类型，路径）缓存，同一 Root 类型只校验一次
+     */
+    private void validate(Root<T> root) {
+        ManagedType<T> type = root.getModel();
+        if (validated == type) {
+            return;
+        }
+        for (Specification<T>[] group : Arrays.asList(fetches, specifications)) {
+            for (Specification<T> specification : group) {
+                Set<String> paths = ContextualSpecification.paths(specification);
+                if (paths != null) {
+                    for (String path : paths) {
+                        PropertyPaths.resolve(type, path);
+                    }
+                }
+            }
+        }
+        validated = type;
+    }
+
+    /**
+     * 嵌套的组合条件直接渲染，只有顶层上报监听器
+     */
+    private Predicate render(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        for (Specification<T> fetch : fetches) {
+            if (fetch instanceof ContextualSpecification) {
+                ((ContextualSpecification<T>) fetch).toPredicate(root, query, cb, context);
+            } else {
+                fetch.toPredicate(root, query, cb);
+            }
+        }
+        if (specifications.length == 0) {
+            return null;
+        }
+        Specification<T>[] specifications = semiJoin ? semiJoin(root) : this.specifications;
+        Predicate[] predicates = new Predicate[specifications.length];
+        for (int i = 0; i < specifications.length; i++) {
+            Specification<T> specification = specifications[i];
+            if (specification instanceof ComposedSpecification) {
+                predicates[i] = ((ComposedSpecification<T>) specification).render(root, query, cb, context);
+            } else if (specification instanceof ContextualSpecification) {
+                predicates[i] = ((ContextualSpecification<T>) specification).toPredicate(root, query, cb, context);
+            } else {
+                predicates[i] = specification.toPredicate(root, query, cb);
+            }
+        }
+        return OR.equals(operator) ? cb.or(predicates) : cb.and(predicates);
+    }
+
+    private static int joins(From<?, ?> from) {
+        int count = 0;
+        for (Join<?, ?> join : from.getJoins()) {
+            count += 1 + joins(join);
+        }
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            count += 1 + (fetch instanceof From ? joins((From<?, ?>) fetch) : 0);
+        }
+        return count;
+    }
+
+    /**
+     * 经过同一个集合关联的条件合并为一个 exists
+     */
+    private Specification<T>[] semiJoin(Root<T> root) {
+        List<Specification<T>> result = new ArrayList<>(specifications.length);
+        Map<String, List<Specification<T>>> groups = new LinkedHashMap<>();
+        Map<String, Integer> positions = new LinkedHashMap<>();
+        for (Specification<T> specification : specifications) {
+            String path = pluralPath(specification, root);
+            if (path == null) {
+                result.add(specification);
+            } else {
+                if (!groups.containsKey(path)) {
+                    groups.put(path, new ArrayList<>());
+                    positions.put(path, result.size());
+                    result.add(null);
+                }
+                groups.get(path).add(specification);
+            }
+        }
+        for (Map.Entry<String, List<Specification<T>>> group : groups.entrySet()) {
+            List<Specification<T>> members = group.getValue();
+            Specification<T> inner = members.size() == 1 ? members.get(0) : new ComposedSpecification<>(operator, members, Collections.emptyList(), compiled, false);
+            result.set(positions.get(group.getKey()), new ExistsSpecification<>(inner));
+        }
+        return result.toArray(new Specification[0]);
+    }
+
+    /**
+     * 条件路径上第一个集合关联之前（含）的路径，见 {@link ExistsSpecification#pluralPath}；
+     * 非半连接模式、没有抓取的组合（如拆分出的 in）中全部条件经过同一个集合关联时取该路径，与同一关联上的其它条件一起分组
+     */
+    private static String pluralPath(Specification<?> specification, Root<?> root) {
+        if (!(specification instanceof ComposedSpecification)) {
+            return ExistsSpecification.pluralPath(specification, root);
+        }
+        ComposedSpecification<?> composed = (ComposedSpecification<?>) specification;
+        if (composed.semiJoin || composed.fetches.length > 0 || composed.specifications.length == 0) {
+            return null;
+        }
+        String path = null;
+        for (Specification<?> child : composed.specifications) {
+            String childPath = pluralPath(child, root);
+            if (childPath == null || (path != null && !path.equals(childPath))) {
+                return null;
+            }
+            path = childPath;
+        }
+        return path;
+    }
+
+    private static List<Fingerprint> fingerprints(Specification<?>[] specifications) {
+        List<Fingerprint> result = new ArrayList<>(specifications.length);
+        for (Specification<?> specification : specifications) {
+            result.add(Fingerprint.of(specification));
+        }
+        return result;
+    }
+
+    private static boolean unsatisfiable(Predicate.BooleanOperator operator, Specification<?>[] specifications) {
+        if (OR.equals(operator)) {
+            for (Specification<?> specification : specifications) {
+                if (!ContextualSpecification.unsatisfiable(specification)) {
+                    return false;
+                }
+            }
+            return specifications.length > 0;
+        }
+        for (Specification<?> specification : specifications) {
+            if (ContextualSpecification.unsatisfiable(specification)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+/**
+ * 随条件一起执行的查询提示，见 {@link AbstractPredicateBuilder#build()} 与 {@link ComposedSpecification#getHints()}
+ * <p>
+ * 以字符串传给 {@link javax.persistence.Query#setHint(String, Object)}，不认识的提示由 JPA 实现忽略。
+ */
+public final class ExecutionHints {
+    /**
+     * JDBC fetch size
+     */
+    public static final String FETCH_SIZE = "org.hibernate.fetchSize";
+    /**
+     * 查询超时，单位毫秒
+     */
+    public static final String TIMEOUT = "javax.persistence.query.timeout";
+    /**
+     * 实体以只读方式加载，不保留快照，flush 时不检查修改
+     */
+    public static final String READ_ONLY = "org.hibernate.readOnly";
+    /**
+     * 使用查询缓存，需要开启二级缓存和查询缓存
+     */
+    public static final String CACHEABLE = "org.hibernate.cacheable";
+
+    private ExecutionHints() {
+    }
+}
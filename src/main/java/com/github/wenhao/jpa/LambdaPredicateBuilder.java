@@ -28,17 +28,120 @@ import com.github.wenhao.lambda.LambdaUtils;
 import com.github.wenhao.lambda.SerializableBiConsumer;
 import com.github.wenhao.lambda.SerializableFunction;
 import com.github.wenhao.LikeBuilder;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.function.Supplier;
 
 public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
+    private static final String DELIMITER = ".";
 
     public LambdaPredicateBuilder(AbstractPredicateBuilder builder) {
         super(builder);
     }
 
+    /**
+     * in/notIn 的值个数在 build/compile 时补齐到 2 的幂，减少 in 条件的 SQL 形状，见 {@link com.github.wenhao.jpa.specification.InClausePadding}
+     */
+    public LambdaPredicateBuilder<T> inClausePadding(boolean padding) {
+        this.setInClausePadding(padding);
+        return this;
+    }
+
+    /**
+     * 超过 {@link InSpecification#CHUNK_SIZE} 个值的 in/notIn（包括嵌套条件中的与多值的 eq/ne）在 build/compile 时拆分成多个 in，
+     * 用于限制 in 列表长度的数据库（如 Oracle 的 ORA-01795）；参数总数不变，不能绕过绑定参数个数的限制
+     */
+    public LambdaPredicateBuilder<T> inClauseSplitting(boolean splitting) {
+        this.setInClauseSplitting(splitting);
+        return this;
+    }
+
+    /**
+     * build/compile 时优化条件树：展开嵌套、去重、合并区间、or 中的 eq 合并为 in，查询结果不变
+     */
+    public LambdaPredicateBuilder<T> optimize(boolean optimize) {
+        this.setOptimize(optimize);
+        return this;
+    }
+
+    /**
+     * 半连接模式：路径经过集合关联（{@code @OneToMany}、{@code @ManyToMany}）的条件渲染为 exists 子查询，不再 join 集合
+     */
+    public LambdaPredicateBuilder<T> semiJoin(boolean semiJoin) {
+        this.setSemiJoin(semiJoin);
+        return this;
+    }
+
+    /**
+     * JDBC fetch size，大批量读取时调大以减少网络往返
+     */
+    public LambdaPredicateBuilder<T> fetchSize(int fetchSize) {
+        return hint(ExecutionHints.FETCH_SIZE, fetchSize);
+    }
+
+    /**
+     * 查询超时，单位毫秒
+     */
+    public LambdaPredicateBuilder<T> timeout(int milliseconds) {
+        return hint(ExecutionHints.TIMEOUT, milliseconds);
+    }
+
+    /**
+     * 只读加载实体，不保留快照
+     */
+    public LambdaPredicateBuilder<T> readOnly(boolean readOnly) {
+        return hint(ExecutionHints.READ_ONLY, readOnly);
+    }
+
+    /**
+     * 使用查询缓存，需要开启二级缓存和查询缓存
+     */
+    public LambdaPredicateBuilder<T> cacheable(boolean cacheable) {
+        return hint(ExecutionHints.CACHEABLE, cacheable);
+    }
+
+    /**
+     * 随条件执行的查询提示，由 {@link com.github.wenhao.jpa.repository.SimpleSpecificationRepository} 设置到查询上
+     */
+    public LambdaPredicateBuilder<T> hint(String name, Object value) {
+        this.addHint(name, value);
+        return this;
+    }
+
+    public LambdaPredicateBuilder<T> exists(Specification<T> specification) {
+        return exists(true, specification);
+    }
+
+    /**
+     * 以 exists 子查询包装 specification，其中的条件作用在同一个关联对象上
+     */
+    public LambdaPredicateBuilder<T> exists(boolean condition, Specification<T> specification) {
+        return this.predicate(condition, new ExistsSpecification<T>(specification));
+    }
+
+    public <R> LambdaPredicateBuilder<T> fetch(SerializableFunction<T, R> getterFunc) {
+        return fetch(true, getterFunc);
+    }
+
+    /**
+     * 抓取关联，避免逐个加载关联产生的 N+1 查询；计数查询中自动忽略
+     */
+    public <R> LambdaPredicateBuilder<T> fetch(boolean condition, SerializableFunction<T, R> getterFunc) {
+        this.addFetch(condition, () -> new FetchSpecification<T>(LambdaUtils.getField(getterFunc)));
+        return this;
+    }
+
+    public <U> LambdaPredicateBuilder<T> fetch(CascadeField<T, U> cascade) {
+        return fetch(true, cascade);
+    }
+
+    public <U> LambdaPredicateBuilder<T> fetch(boolean condition, CascadeField<T, U> cascade) {
+        this.addFetch(condition, () -> new FetchSpecification<T>(cascade.getFieldName(DELIMITER)));
+        return this;
+    }
+
     // -------------------------------
     // getter method
     // -------------------------------
@@ -345,18 +448,18 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
 
 
     // -------------------------------
-    // cascade
+    // cascade，也接受 jpa-spec-processor 生成的属性常量，按属性名构造条件
     // -------------------------------
     public <U> LambdaPredicateBuilder<T> eq(CascadeField<T, U> cascade, Object... values) {
         return eq(true, cascade, values);
     }
 
     public <U> LambdaPredicateBuilder<T> eq(boolean condition, CascadeField<T, U> cascade, Object... values) {
-        return this.predicate(condition, () -> new EqualSpecification<T>(cascade.getFields(), values));
+        return this.predicate(condition, () -> new EqualSpecification<T>(cascade.getFieldName(DELIMITER), values));
     }
 
     public <U> LambdaPredicateBuilder<T> eq(boolean condition, CascadeField<T, U> cascade, Supplier<Object>... suppliers) {
-        return this.predicate(condition, () -> new EqualSpecification<T>(cascade.getFields(), suppliers));
+        return this.predicate(condition, () -> new EqualSpecification<T>(cascade.getFieldName(DELIMITER), suppliers));
     }
 
     public <U> LambdaPredicateBuilder<T> ne(CascadeField<T, U> cascade, Object... values) {
@@ -364,11 +467,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> ne(boolean condition, CascadeField<T, U> cascade, Object... values) {
-        return this.predicate(condition, () -> new NotEqualSpecification<T>(cascade.getFields(), values));
+        return this.predicate(condition, () -> new NotEqualSpecification<T>(cascade.getFieldName(DELIMITER), values));
     }
 
     public <U> LambdaPredicateBuilder<T> ne(boolean condition, CascadeField<T, U> cascade, Supplier<Object>... suppliers) {
-        return this.predicate(condition, () -> new NotEqualSpecification<T>(cascade.getFields(), suppliers));
+        return this.predicate(condition, () -> new NotEqualSpecification<T>(cascade.getFieldName(DELIMITER), suppliers));
     }
 
     public <U> LambdaPredicateBuilder<T> gt(CascadeField<T, U> cascade, Comparable<?> compare) {
@@ -376,11 +479,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> gt(boolean condition, CascadeField<T, U> cascade, Comparable<?> compare) {
-        return this.predicate(condition, () -> new GtSpecification<T>(cascade.getFields(), compare));
+        return this.predicate(condition, () -> new GtSpecification<T>(cascade.getFieldName(DELIMITER), compare));
     }
 
     public <U> LambdaPredicateBuilder<T> gt(boolean condition, CascadeField<T, U> cascade, Supplier<Comparable<?>> comparableSupplier) {
-        return this.predicate(condition, () -> new GtSpecification<T>(cascade.getFields(), comparableSupplier));
+        return this.predicate(condition, () -> new GtSpecification<T>(cascade.getFieldName(DELIMITER), comparableSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> ge(CascadeField<T, U> cascade, Comparable<?> compare) {
@@ -388,11 +491,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> ge(boolean condition, CascadeField<T, U> cascade, Comparable<? extends Object> compare) {
-        return this.predicate(condition, () -> new GeSpecification<T>(cascade.getFields(), compare));
+        return this.predicate(condition, () -> new GeSpecification<T>(cascade.getFieldName(DELIMITER), compare));
     }
 
     public <U> LambdaPredicateBuilder<T> ge(boolean condition, CascadeField<T, U> cascade, Supplier<Comparable<? extends Object>> comparableSupplier) {
-        return this.predicate(condition, () -> new GeSpecification<T>(cascade.getFields(), comparableSupplier));
+        return this.predicate(condition, () -> new GeSpecification<T>(cascade.getFieldName(DELIMITER), comparableSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> lt(CascadeField<T, U> cascade, Comparable<?> number) {
@@ -400,11 +503,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> lt(boolean condition, CascadeField<T, U> cascade, Comparable<?> compare) {
-        return this.predicate(condition, () -> new LtSpecification<T>(cascade.getFields(), compare));
+        return this.predicate(condition, () -> new LtSpecification<T>(cascade.getFieldName(DELIMITER), compare));
     }
 
     public <U> LambdaPredicateBuilder<T> lt(boolean condition, CascadeField<T, U> cascade, Supplier<Comparable<? extends Object>> comparableSupplier) {
-        return this.predicate(condition, () -> new LtSpecification<T>(cascade.getFields(), comparableSupplier));
+        return this.predicate(condition, () -> new LtSpecification<T>(cascade.getFieldName(DELIMITER), comparableSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> le(CascadeField<T, U> cascade, Comparable<?> compare) {
@@ -412,11 +515,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> le(boolean condition, CascadeField<T, U> cascade, Comparable<?> compare) {
-        return this.predicate(condition, () -> new LeSpecification<T>(cascade.getFields(), compare));
+        return this.predicate(condition, () -> new LeSpecification<T>(cascade.getFieldName(DELIMITER), compare));
     }
 
     public <U> LambdaPredicateBuilder<T> le(boolean condition, CascadeField<T, U> cascade,Supplier<Comparable<? extends Object>> comparableSupplier) {
-        return this.predicate(condition, () -> new LeSpecification<T>(cascade.getFields(), comparableSupplier));
+        return this.predicate(condition, () -> new LeSpecification<T>(cascade.getFieldName(DELIMITER), comparableSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> between(CascadeField<T, U> cascade, Object lower, Object upper) {
@@ -424,11 +527,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> between(boolean condition, CascadeField<T, U> cascade, Object lower, Object upper) {
-        return this.predicate(condition, () -> new BetweenSpecification<T>(cascade.getFields(), lower, upper));
+        return this.predicate(condition, () -> new BetweenSpecification<T>(cascade.getFieldName(DELIMITER), lower, upper));
     }
 
     public <U> LambdaPredicateBuilder<T> between(boolean condition, CascadeField<T, U> cascade, Supplier<Object> lowerSupplier, Supplier<Object> upperSupplier) {
-        return this.predicate(condition, () -> new BetweenSpecification<T>(cascade.getFields(), lowerSupplier, upperSupplier));
+        return this.predicate(condition, () -> new BetweenSpecification<T>(cascade.getFieldName(DELIMITER), lowerSupplier, upperSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> like(CascadeField<T, U> cascade, String... patterns) {
@@ -436,18 +539,18 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> like(boolean condition, CascadeField<T, U> cascade, String... patterns) {
-        return this.predicate(condition, () -> new LikeSpecification<T>(cascade.getFields(), patterns));
+        return this.predicate(condition, () -> new LikeSpecification<T>(cascade.getFieldName(DELIMITER), patterns));
     }
 
     public <U> LambdaPredicateBuilder<T> like(boolean condition, CascadeField<T, U> cascade, Supplier<String>... patternsSupplier) {
-        return this.predicate(condition, () -> new LikeSpecification<T>(cascade.getFields(), patternsSupplier));
+        return this.predicate(condition, () -> new LikeSpecification<T>(cascade.getFieldName(DELIMITER), patternsSupplier));
     }
 
     public <R> LambdaPredicateBuilder<T> like(boolean condition, CascadeField<T, R> cascade, Supplier<LikeBuilder> builderSupplier) {
         return this.predicate(condition, () -> {
             LikeBuilder likeBuilder = builderSupplier.get();
             List<String> values = likeBuilder.build();
-            return new LikeSpecification<T>(cascade.getFields(), values.toArray(new String[0]));
+            return new LikeSpecification<T>(cascade.getFieldName(DELIMITER), values.toArray(new String[0]));
         });
     }
 
@@ -456,18 +559,18 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> notLike(boolean condition, CascadeField<T, U> cascade, String... patterns) {
-        return this.predicate(condition, () -> new NotLikeSpecification<T>(cascade.getFields(), patterns));
+        return this.predicate(condition, () -> new NotLikeSpecification<T>(cascade.getFieldName(DELIMITER), patterns));
     }
 
     public <U> LambdaPredicateBuilder<T> notLike(boolean condition, CascadeField<T, U> cascade, Supplier<String>... patternsSupplier) {
-        return this.predicate(condition, () -> new NotLikeSpecification<T>(cascade.getFields(),  patternsSupplier));
+        return this.predicate(condition, () -> new NotLikeSpecification<T>(cascade.getFieldName(DELIMITER),  patternsSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> notLike(boolean condition, CascadeField<T, U> cascade, Supplier<LikeBuilder> builderSupplier) {
         return this.predicate(condition, () -> {
             LikeBuilder likeBuilder = builderSupplier.get();
             List<String> values = likeBuilder.build();
-            return new NotLikeSpecification<T>(cascade.getFields(), values.toArray(new String[0]));
+            return new NotLikeSpecification<T>(cascade.getFieldName(DELIMITER), values.toArray(new String[0]));
         });
     }
 
@@ -476,11 +579,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> in(boolean condition, CascadeField<T, U> cascade, Collection<?> values) {
-        return this.predicate(condition, () -> new InSpecification<T>(cascade.getFields(), values));
+        return this.predicate(condition, () -> new InSpecification<T>(cascade.getFieldName(DELIMITER), values));
     }
 
     public <U> LambdaPredicateBuilder<T> in(boolean condition, CascadeField<T, U> cascade, Supplier<Collection<?>> collectionSupplier) {
-        return this.predicate(condition, () -> new InSpecification<T>(cascade.getFields(), collectionSupplier));
+        return this.predicate(condition, () -> new InSpecification<T>(cascade.getFieldName(DELIMITER), collectionSupplier));
     }
 
     public <U> LambdaPredicateBuilder<T> notIn(CascadeField<T, U> cascade, Collection<?> values) {
@@ -488,11 +591,11 @@ public class LambdaPredicateBuilder<T> extends AbstractPredicateBuilder<T> {
     }
 
     public <U> LambdaPredicateBuilder<T> notIn(boolean condition, CascadeField<T, U> cascade, Collection<?> values) {
-        return this.predicate(condition, () -> new NotInSpecification<T>(cascade.getFields(), values));
+        return this.predicate(condition, () -> new NotInSpecification<T>(cascade.getFieldName(DELIMITER), values));
     }
 
     public <U> LambdaPredicateBuilder<T> notIn(boolean condition, CascadeField<T, U> cascade, Supplier<Collection<?>> collectionSupplier) {
-        return this.predicate(condition, () -> new NotInSpecification<T>(cascade.getFields(), collectionSupplier));
+        return this.predicate(condition, () -> new NotInSpecification<T>(cascade.getFieldName(DELIMITER), collectionSupplier));
     }
 
 }
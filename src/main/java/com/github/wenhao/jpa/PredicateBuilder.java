@@ -22,6 +22,7 @@
 package com.github.wenhao.jpa;
 
 import com.github.wenhao.jpa.specification.*;
+import org.springframework.data.jpa.domain.Specification;
 
 import javax.persistence.criteria.Predicate;
 import java.util.Collection;
@@ -34,6 +35,102 @@ public class PredicateBuilder<T> extends AbstractPredicateBuilder<T>{
         super(operator);
     }
 
+    public PredicateBuilder(Predicate.BooleanOperator operator, Class<T> domainClass) {
+        super(operator, domainClass);
+    }
+
+    /**
+     * in/notIn 的值个数在 build/compile 时补齐到 2 的幂，减少 in 条件的 SQL 形状，见 {@link com.github.wenhao.jpa.specification.InClausePadding}
+     */
+    public PredicateBuilder<T> inClausePadding(boolean padding) {
+        this.setInClausePadding(padding);
+        return this;
+    }
+
+    /**
+     * 超过 {@link InSpecification#CHUNK_SIZE} 个值的 in/notIn（包括嵌套条件中的与多值的 eq/ne）在 build/compile 时拆分成多个 in，
+     * 用于限制 in 列表长度的数据库（如 Oracle 的 ORA-01795）；参数总数不变，不能绕过绑定参数个数的限制
+     */
+    public PredicateBuilder<T> inClauseSplitting(boolean splitting) {
+        this.setInClauseSplitting(splitting);
+        return this;
+    }
+
+    /**
+     * build/compile 时优化条件树：展开嵌套、去重、合并区间、or 中的 eq 合并为 in，查询结果不变
+     */
+    public PredicateBuilder<T> optimize(boolean optimize) {
+        this.setOptimize(optimize);
+        return this;
+    }
+
+    /**
+     * 半连接模式：路径经过集合关联（{@code @OneToMany}、{@code @ManyToMany}）的条件渲染为 exists 子查询，不再 join 集合
+     */
+    public PredicateBuilder<T> semiJoin(boolean semiJoin) {
+        this.setSemiJoin(semiJoin);
+        return this;
+    }
+
+    /**
+     * JDBC fetch size，大批量读取时调大以减少网络往返
+     */
+    public PredicateBuilder<T> fetchSize(int fetchSize) {
+        return hint(ExecutionHints.FETCH_SIZE, fetchSize);
+    }
+
+    /**
+     * 查询超时，单位毫秒
+     */
+    public PredicateBuilder<T> timeout(int milliseconds) {
+        return hint(ExecutionHints.TIMEOUT, milliseconds);
+    }
+
+    /**
+     * 只读加载实体，不保留快照
+     */
+    public PredicateBuilder<T> readOnly(boolean readOnly) {
+        return hint(ExecutionHints.READ_ONLY, readOnly);
+    }
+
+    /**
+     * 使用查询缓存，需要开启二级缓存和查询缓存
+     */
+    public PredicateBuilder<T> cacheable(boolean cacheable) {
+        return hint(ExecutionHints.CACHEABLE, cacheable);
+    }
+
+    /**
+     * 随条件执行的查询提示，由 {@link com.github.wenhao.jpa.repository.SimpleSpecificationRepository} 设置到查询上
+     */
+    public PredicateBuilder<T> hint(String name, Object value) {
+        this.addHint(name, value);
+        return this;
+    }
+
+    public PredicateBuilder<T> exists(Specification<T> specification) {
+        return exists(true, specification);
+    }
+
+    /**
+     * 以 exists 子查询包装 specification，其中的条件作用在同一个关联对象上
+     */
+    public PredicateBuilder<T> exists(boolean condition, Specification<T> specification) {
+        return this.predicate(condition, new ExistsSpecification<T>(specification));
+    }
+
+    public PredicateBuilder<T> fetch(String property) {
+        return fetch(true, property);
+    }
+
+    /**
+     * 抓取关联，避免逐个加载关联产生的 N+1 查询；计数查询中自动忽略
+     */
+    public PredicateBuilder<T> fetch(boolean condition, String property) {
+        this.addFetch(condition, () -> new FetchSpecification<T>(property));
+        return this;
+    }
+
     public PredicateBuilder<T> eq(String property, Object... values) {
         return eq(true, property, values);
     }
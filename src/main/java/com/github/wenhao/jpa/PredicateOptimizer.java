@@ -0,0 +1,283 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.specification.BetweenSpecification;
+import com.github.wenhao.jpa.specification.CompareSpecification;
+import com.github.wenhao.jpa.specification.ContextualSpecification;
+import com.github.wenhao.jpa.specification.EqualSpecification;
+import com.github.wenhao.jpa.specification.Fingerprint;
+import com.github.wenhao.jpa.specification.GeSpecification;
+import com.github.wenhao.jpa.specification.GtSpecification;
+import com.github.wenhao.jpa.specification.LeSpecification;
+import com.github.wenhao.jpa.specification.LtSpecification;
+import com.github.wenhao.jpa.specification.ValuesSpecification;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.Predicate;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static javax.persistence.criteria.Predicate.BooleanOperator.AND;
+import static javax.persistence.criteria.Predicate.BooleanOperator.OR;
+
+/**
+ * 条件树优化，在 {@link AbstractPredicateBuilder#build()} 渲染前改写收集到的条件：
+ * <ul>
+ * <li>展开同一操作符的嵌套组合，只有一个条件的组合直接取该条件（半连接模式不同或带抓取时不展开）</li>
+ * <li>空组合视为恒真：and 中去掉，or 中使整个 or 恒真</li>
+ * <li>恒假的条件（如空的 in）：and 中只保留该条件，or 中去掉</li>
+ * <li>去掉重复的条件</li>
+ * <li>and 中同一数值或日期时间属性的上下界取最紧的一个，闭区间合并为 between；字符串按数据库的排序规则、
+ * 枚举（{@code EnumType.STRING}）按名称比较，与 Java 中的顺序不同，不合并</li>
+ * <li>or 中同一属性的多个 eq 合并为一个 eq，渲染为 in</li>
+ * </ul>
+ * 改写前后的查询结果一致；自定义的 Specification 原样保留。
+ */
+final class PredicateOptimizer {
+
+    private PredicateOptimizer() {
+    }
+
+    /**
+     * @return 优化后的条件，为空表示恒真（不限制）
+     */
+    static <T> List<Specification<T>> optimize(Predicate.BooleanOperator operator, boolean semiJoin, List<Specification<T>> specifications) {
+        List<Specification<T>> flattened = new ArrayList<>(specifications.size());
+        for (Specification<T> specification : specifications) {
+            if (!(specification instanceof ComposedSpecification)) {
+                flattened.add(specification);
+                continue;
+            }
+            ComposedSpecification<T> composed = (ComposedSpecification<T>) specification;
+            List<Specification<T>> children = optimize(composed.getOperator(), composed.isSemiJoin(), composed.getSpecifications());
+            boolean fetched = !composed.getFetches().isEmpty();
+            if (children.isEmpty() && !fetched) {
+                if (OR.equals(operator)) {
+                    return Collections.emptyList();
+                }
+            } else if (!fetched && composed.isSemiJoin() == semiJoin && (children.size() == 1 || composed.getOperator().equals(operator))) {
+                flattened.addAll(children);
+            } else {
+                flattened.add(new ComposedSpecification<>(composed.getOperator(), children, composed.getFetches(),
+                        composed.isCompiled(), composed.isSemiJoin()));
+            }
+        }
+        List<Specification<T>> folded = foldUnsatisfiable(operator, flattened);
+        List<Specification<T>> distinct = distinct(folded);
+        return AND.equals(operator) ? mergeRanges(distinct) : mergeEquals(distinct);
+    }
+
+    private static <T> List<Specification<T>> foldUnsatisfiable(Predicate.BooleanOperator operator, List<Specification<T>> specifications) {
+        List<Specification<T>> satisfiable = new ArrayList<>(specifications.size());
+        for (Specification<T> specification : specifications) {
+            if (!ContextualSpecification.unsatisfiable(specification)) {
+                satisfiable.add(specification);
+            } else if (AND.equals(operator)) {
+                return Collections.singletonList(specification);
+            }
+        }
+        return satisfiable.isEmpty() ? specifications : satisfiable;
+    }
+
+    private static <T> List<Specification<T>> distinct(List<Specification<T>> specifications) {
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        Set<Fingerprint> keys = new HashSet<>();
+        for (Specification<T> specification : specifications) {
+            Fingerprint key = Fingerprint.of(specification);
+            if (key == null || keys.add(key)) {
+                result.add(specification);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * eq(property, null) 的值数组为 null，等同于一个 null 值
+     */
+    private static Object[] equalValues(ValuesSpecification<?> specification) {
+        Object[] values = specification.getValues();
+        return values == null ? new Object[] {null} : values;
+    }
+
+    private static <T> List<Specification<T>> mergeEquals(List<Specification<T>> specifications) {
+        Map<String, Set<Object>> values = new LinkedHashMap<>();
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Specification<T> specification : specifications) {
+            if (specification != null && specification.getClass() == EqualSpecification.class) {
+                EqualSpecification<T> equal = (EqualSpecification<T>) specification;
+                values.computeIfAbsent(equal.getPath(), path -> new LinkedHashSet<>()).addAll(Arrays.asList(equalValues(equal)));
+                counts.merge(equal.getPath(), 1, Integer::sum);
+            }
+        }
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        Set<String> merged = new HashSet<>();
+        for (Specification<T> specification : specifications) {
+            if (specification == null || specification.getClass() != EqualSpecification.class) {
+                result.add(specification);
+                continue;
+            }
+            String path = ((EqualSpecification<T>) specification).getPath();
+            if (counts.get(path) == 1) {
+                result.add(specification);
+            } else if (merged.add(path)) {
+                result.add(new EqualSpecification<>(path, values.get(path).toArray()));
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<Specification<T>> mergeRanges(List<Specification<T>> specifications) {
+        Map<String, Range> ranges = new LinkedHashMap<>();
+        for (Specification<T> specification : specifications) {
+            String path = rangePath(specification);
+            if (path != null) {
+                ranges.computeIfAbsent(path, key -> new Range()).add(specification);
+            }
+        }
+        List<Specification<T>> result = new ArrayList<>(specifications.size());
+        Set<String> merged = new HashSet<>();
+        for (Specification<T> specification : specifications) {
+            String path = rangePath(specification);
+            Range range = path == null ? null : ranges.get(path);
+            if (range == null || !range.isMergeable()) {
+                result.add(specification);
+            } else if (merged.add(path)) {
+                result.addAll(range.toSpecifications(path));
+            }
+        }
+        return result;
+    }
+
+    private static String rangePath(Specification<?> specification) {
+        if (specification == null) {
+            return null;
+        }
+        Class<?> type = specification.getClass();
+        if (type == GtSpecification.class || type == GeSpecification.class
+                || type == LtSpecification.class || type == LeSpecification.class) {
+            return ((CompareSpecification<?>) specification).getPath();
+        }
+        if (type == BetweenSpecification.class) {
+            return ((BetweenSpecification<?>) specification).getPath();
+        }
+        return null;
+    }
+
+    /**
+     * 同一属性上的上下界
+     */
+    private static final class Range {
+        private final List<Specification<?>> specifications = new ArrayList<>();
+        private Comparable<Object> lower;
+        private boolean lowerInclusive;
+        private Comparable<Object> upper;
+        private boolean upperInclusive;
+        private boolean comparable = true;
+        private Class<?> valueType;
+
+        void add(Specification<?> specification) {
+            specifications.add(specification);
+            if (specification instanceof BetweenSpecification) {
+                BetweenSpecification<?> between = (BetweenSpecification<?>) specification;
+                lower(between.getLower(), true);
+                upper(between.getUpper(), true);
+            } else if (specification instanceof GtSpecification) {
+                lower(((CompareSpecification<?>) specification).getCompare(), false);
+            } else if (specification instanceof GeSpecification) {
+                lower(((CompareSpecification<?>) specification).getCompare(), true);
+            } else if (specification instanceof LtSpecification) {
+                upper(((CompareSpecification<?>) specification).getCompare(), false);
+            } else {
+                upper(((CompareSpecification<?>) specification).getCompare(), true);
+            }
+        }
+
+        /**
+         * 只有一个条件时无需改写；值为 null、不是数值或日期时间、或类型不一致时无法比较，原样保留
+         */
+        boolean isMergeable() {
+            return comparable && specifications.size() > 1;
+        }
+
+        private void lower(Comparable<Object> value, boolean inclusive) {
+            if (accept(value)) {
+                int compare = lower == null ? 1 : value.compareTo(lower);
+                if (compare > 0 || (compare == 0 && !inclusive)) {
+                    lower = value;
+                    lowerInclusive = inclusive;
+                }
+            }
+        }
+
+        private void upper(Comparable<Object> value, boolean inclusive) {
+            if (accept(value)) {
+                int compare = upper == null ? -1 : value.compareTo(upper);
+                if (compare < 0 || (compare == 0 && !inclusive)) {
+                    upper = value;
+                    upperInclusive = inclusive;
+                }
+            }
+        }
+
+        private boolean accept(Comparable<Object> value) {
+            if (!isOrderedAsInDatabase(value) || (valueType != null && !Objects.equals(valueType, value.getClass()))) {
+                comparable = false;
+            } else {
+                valueType = value.getClass();
+            }
+            return comparable;
+        }
+
+        /**
+         * 与数据库中顺序一致的值：数值与日期时间，同 findAllInChunks 归并排序的限制
+         */
+        private static boolean isOrderedAsInDatabase(Object value) {
+            return value instanceof Number || value instanceof Date || value instanceof Calendar || value instanceof Temporal;
+        }
+
+        <T> List<Specification<T>> toSpecifications(String path) {
+            if (lower != null && upper != null && lowerInclusive && upperInclusive) {
+                return Collections.singletonList(new BetweenSpecification<>(path, lower, upper));
+            }
+            List<Specification<T>> result = new ArrayList<>(2);
+            if (lower != null) {
+                result.add(lowerInclusive ? new GeSpecification<>(path, lower) : new GtSpecification<>(path, lower));
+            }
+            if (upper != null) {
+                result.add(upperInclusive ? new LeSpecification<>(path, upper) : new LtSpecification<>(path, upper));
+            }
+            return result;
+        }
+    }
+}
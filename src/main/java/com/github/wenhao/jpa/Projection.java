@@ -0,0 +1,285 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.lambda.LambdaUtils;
+import com.github.wenhao.lambda.SerializableFunction;
+import org.springframework.beans.BeanUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 投影：只查询指定的列，把每行映射为 DTO 或 Object[]
+ * <p>
+ * 映射所需的构造器、setter 在创建时解析为 {@link MethodHandle}，执行时不再反射；
+ * 投影不可变，可以保存在静态字段中重复使用。由
+ * {@link com.github.wenhao.jpa.repository.SpecificationRepository#findAllProjected(org.springframework.data.jpa.domain.Specification, Projection, org.springframework.data.domain.Sort)}
+ * 执行，结果不是受管实体，没有持久化上下文的快照开销。
+ */
+public final class Projection<T, R> {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    /**
+     * 按类型缓存的投影，保存在各个 Class 上，不会阻止类加载器被回收
+     */
+    private static final ClassValue<Projection<?, ?>> TYPES = new ClassValue<Projection<?, ?>>() {
+        @Override
+        protected Projection<?, ?> computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+    private static final MethodHandle BEAN_MAPPER;
+    private static final MethodHandle OR_DEFAULT;
+
+    static {
+        try {
+            BEAN_MAPPER = LOOKUP.findStatic(Projection.class, "mapBean",
+                    MethodType.methodType(Object.class, MethodHandle.class, MethodHandle[].class, Object[].class));
+            OR_DEFAULT = LOOKUP.findStatic(Projection.class, "orDefault",
+                    MethodType.methodType(Object.class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String[] properties;
+    /**
+     * (Object[]) -> Object，为 null 时行原样返回
+     */
+    private final MethodHandle mapper;
+
+    private Projection(String[] properties, MethodHandle mapper) {
+        this.properties = properties;
+        this.mapper = mapper;
+    }
+
+    /**
+     * 按 DTO 类型投影：record 按组件名与组件顺序调用规范构造器；其它类型以无参构造器创建，按可写属性名调用 setter。
+     * 名称即实体属性名，同一类型的投影只解析一次。基本类型的参数遇到 null 列值时取默认值（0、false）。
+     */
+    @SuppressWarnings("unchecked")
+    public static <T, R> Projection<T, R> of(Class<R> type) {
+        return (Projection<T, R>) TYPES.get(type);
+    }
+
+    /**
+     * 按属性路径查询，以参数个数相同的构造器创建 DTO，参数顺序与属性顺序一致
+     */
+    public static <T, R> Projection<T, R> of(Class<R> type, String... properties) {
+        return new Projection<>(properties.clone(), constructor(type, properties.length));
+    }
+
+    @SafeVarargs
+    public static <T, R> Projection<T, R> of(Class<R> type, SerializableFunction<T, ?>... getters) {
+        return of(type, names(getters));
+    }
+
+    /**
+     * 按属性路径查询，每行为 Object[]
+     */
+    public static <T> Projection<T, Object[]> columns(String... properties) {
+        return new Projection<>(properties.clone(), null);
+    }
+
+    @SafeVarargs
+    public static <T> Projection<T, Object[]> columns(SerializableFunction<T, ?>... getters) {
+        return new Projection<>(names(getters), null);
+    }
+
+    public List<String> getProperties() {
+        return Arrays.asList(properties.clone());
+    }
+
+    /**
+     * 映射一行
+     * @param row 与 {@link #getProperties()} 顺序一致的列值
+     */
+    @SuppressWarnings("unchecked")
+    public R map(Object[] row) {
+        if (mapper == null) {
+            return (R) row;
+        }
+        try {
+            return (R) mapper.invokeExact(row);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String[] names(SerializableFunction<?, ?>[] getters) {
+        String[] names = new String[getters.length];
+        for (int i = 0; i < getters.length; i++) {
+            names[i] = LambdaUtils.getField(getters[i]).getName();
+        }
+        return names;
+    }
+
+    private static Projection<?, ?> resolve(Class<?> type) {
+        Object[] components = recordComponents(type);
+        if (components != null) {
+            String[] names = new String[components.length];
+            Class<?>[] types = new Class<?>[components.length];
+            for (int i = 0; i < components.length; i++) {
+                names[i] = (String) invoke(components[i], "getName");
+                types[i] = (Class<?>) invoke(components[i], "getType");
+            }
+            try {
+                return new Projection<>(names, spread(type.getDeclaredConstructor(types)));
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("No canonical constructor on " + type.getName(), e);
+            }
+        }
+        return bean(type);
+    }
+
+    /**
+     * 无参构造器 + setter
+     */
+    private static Projection<?, ?> bean(Class<?> type) {
+        List<String> names = new ArrayList<>();
+        List<MethodHandle> setters = new ArrayList<>();
+        for (PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+            Method setter = descriptor.getWriteMethod();
+            if (setter != null) {
+                names.add(descriptor.getName());
+                setters.add(nullToDefault(unreflect(setter)).asType(MethodType.methodType(void.class, Object.class, Object.class)));
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalArgumentException("No writable properties on " + type.getName());
+        }
+        MethodHandle constructor;
+        try {
+            constructor = unreflect(type.getDeclaredConstructor()).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No default constructor on " + type.getName(), e);
+        }
+        MethodHandle[] handles = setters.toArray(new MethodHandle[0]);
+        MethodHandle mapper = MethodHandles.insertArguments(BEAN_MAPPER, 0, constructor, handles);
+        return new Projection<>(names.toArray(new String[0]), mapper);
+    }
+
+    private static Object mapBean(MethodHandle constructor, MethodHandle[] setters, Object[] row) throws Throwable {
+        Object bean = constructor.invokeExact();
+        for (int i = 0; i < setters.length; i++) {
+            setters[i].invokeExact(bean, row[i]);
+        }
+        return bean;
+    }
+
+    private static MethodHandle constructor(Class<?> type, int parameters) {
+        Constructor<?> found = null;
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.getParameterCount() == parameters) {
+                if (found != null) {
+                    throw new IllegalArgumentException("Ambiguous " + parameters + "-argument constructors on " + type.getName());
+                }
+                found = constructor;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("No " + parameters + "-argument constructor on " + type.getName());
+        }
+        return spread(found);
+    }
+
+    /**
+     * 构造器 -> (Object[]) -> Object
+     */
+    private static MethodHandle spread(Constructor<?> constructor) {
+        return nullToDefault(unreflect(constructor))
+                .asSpreader(Object[].class, constructor.getParameterCount())
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    /**
+     * 基本类型的参数遇到 null 时取默认值，而不是拆箱时抛出 NullPointerException
+     */
+    private static MethodHandle nullToDefault(MethodHandle handle) {
+        Class<?>[] types = handle.type().parameterArray();
+        for (int i = 0; i < types.length; i++) {
+            if (types[i].isPrimitive()) {
+                Object zero = Array.get(Array.newInstance(types[i], 1), 0);
+                MethodHandle filter = MethodHandles.insertArguments(OR_DEFAULT, 1, zero)
+                        .asType(MethodType.methodType(types[i], Object.class));
+                handle = MethodHandles.filterArguments(handle, i, filter);
+            }
+        }
+        return handle;
+    }
+
+    private static Object orDefault(Object value, Object zero) {
+        return value == null ? zero : value;
+    }
+
+    private static MethodHandle unreflect(Constructor<?> constructor) {
+        try {
+            constructor.setAccessible(true);
+            return LOOKUP.unreflectConstructor(constructor);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * JDK 16 以上的 record 组件，其它情况返回 null
+     */
+    private static Object[] recordComponents(Class<?> type) {
+        try {
+            if (!(Boolean) Class.class.getMethod("isRecord").invoke(type)) {
+                return null;
+            }
+            return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static Object invoke(Object target, String method) {
+        try {
+            return target.getClass().getMethod(method).invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
@@ -21,6 +21,7 @@
  */
 package com.github.wenhao.jpa;
 
+import com.github.wenhao.lambda.CascadeField;
 import com.github.wenhao.lambda.LambdaUtils;
 import com.github.wenhao.lambda.SerializableFunction;
 import lombok.Getter;
@@ -39,6 +40,7 @@ import static org.springframework.data.domain.Sort.Direction.DESC;
  * @author chd.y
  */
 public final class Sorts {
+    private static final String DELIMITER = ".";
 
     private Sorts() {
     }
@@ -125,5 +127,30 @@ public final class Sorts {
             return this;
         }
 
+        public <R> LambdaBuilder<T> asc(CascadeField<T, R> cascade) {
+            return asc(true, cascade);
+        }
+
+        public <R> LambdaBuilder<T> desc(CascadeField<T, R> cascade) {
+            return desc(true, cascade);
+        }
+
+        /**
+         * 级联属性排序，与条件中相同路径的关联共用一个 join
+         */
+        public <R> LambdaBuilder<T> asc(boolean condition, CascadeField<T, R> cascade) {
+            if (condition) {
+                super.getOrders().add(new Order(ASC, cascade.getFieldName(DELIMITER)));
+            }
+            return this;
+        }
+
+        public <R> LambdaBuilder<T> desc(boolean condition, CascadeField<T, R> cascade) {
+            if (condition) {
+                super.getOrders().add(new Order(DESC, cascade.getFieldName(DELIMITER)));
+            }
+            return this;
+        }
+
     }
 }
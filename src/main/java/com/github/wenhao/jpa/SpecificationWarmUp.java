@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa;
+
+import com.github.wenhao.jpa.specification.PropertyPaths;
+import com.github.wenhao.lambda.LambdaUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热，按需注册为 Spring Bean 后在所有单例初始化完成时执行：
+ * 沿 JPA Metamodel 遍历实体的属性路径，预先拆分路径、解析属性链与 getter/setter 对应的字段，
+ * 避免发布后的首批请求承担这些开销。未指定实体时预热全部实体
+ * <pre>
+ * &#64;Bean
+ * public SpecificationWarmUp specificationWarmUp(EntityManagerFactory entityManagerFactory) {
+ *     return new SpecificationWarmUp(entityManagerFactory).entities(Person.class, Phone.class);
+ * }
+ * </pre>
+ */
+@Slf4j
+public class SpecificationWarmUp implements SmartInitializingSingleton {
+    public static final int DEFAULT_MAX_DEPTH = 3;
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Set<Class<?>> entities = new LinkedHashSet<>();
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private volatile Report report;
+
+    public SpecificationWarmUp(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public SpecificationWarmUp entities(Class<?>... types) {
+        for (Class<?> type : types) {
+            this.entities.add(type);
+        }
+        return this;
+    }
+
+    /**
+     * 属性路径的最大层数，默认 {@link #DEFAULT_MAX_DEPTH}；双向关联在回到路径上已有的类型时停止展开
+     */
+    public SpecificationWarmUp maxDepth(int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be positive");
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Report result = run();
+        log.info("jpa-spec warm-up finished: {}", result);
+    }
+
+    /**
+     * 最近一次预热的结果，未执行时为 null
+     */
+    public Report getReport() {
+        return report;
+    }
+
+    public Report run() {
+        long start = System.nanoTime();
+        Metamodel metamodel = entityManagerFactory.getMetamodel();
+        PropertyPaths.register(metamodel);
+        Collection<? extends ManagedType<?>> roots;
+        if (entities.isEmpty()) {
+            roots = metamodel.getEntities();
+        } else {
+            List<ManagedType<?>> types = new ArrayList<>();
+            for (Class<?> entity : entities) {
+                types.add(metamodel.managedType(entity));
+            }
+            roots = types;
+        }
+        Walker walker = new Walker();
+        for (ManagedType<?> root : roots) {
+            walker.walk(root, root, "", 1, new HashSet<>());
+        }
+        Report result = new Report(roots.size(), walker.types.size(), walker.paths, walker.methods,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        this.report = result;
+        return result;
+    }
+
+    private final class Walker {
+        private final Set<Class<?>> types = new HashSet<>();
+        private int paths;
+        private int methods;
+
+        private void walk(ManagedType<?> root, ManagedType<?> type, String prefix, int depth, Set<Class<?>> visiting) {
+            Class<?> javaType = type.getJavaType();
+            if (types.add(javaType)) {
+                methods += LambdaUtils.prime(javaType);
+            }
+            visiting.add(javaType);
+            for (Attribute<?, ?> attribute : type.getAttributes()) {
+                String path = prefix + attribute.getName();
+                PropertyPaths.prime(path);
+                PropertyPaths.resolve(root, path);
+                paths++;
+                Type<?> target = attribute instanceof PluralAttribute
+                    ? ((PluralAttribute<?, ?, ?>) attribute).getElementType()
+                    : ((SingularAttribute<?, ?>) attribute).getType();
+                if (target instanceof ManagedType && depth < maxDepth && !visiting.contains(target.getJavaType())) {
+                    walk(root, (ManagedType<?>) target, path + ".", depth + 1, visiting);
+                }
+            }
+            visiting.remove(javaType);
+        }
+    }
+
+    /**
+     * 预热结果：实体数、遍历到的类型数、属性路径数、新解析的 getter/setter 数与耗时
+     */
+    @Getter
+    public static final class Report {
+        private final int entities;
+        private final int types;
+        private final int paths;
+        private final int methods;
+        private final long elapsedMillis;
+
+        Report(int entities, int types, int paths, int methods, long elapsedMillis) {
+            this.entities = entities;
+            this.types = types;
+            this.paths = paths;
+            this.methods = methods;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d entities, %d types, %d paths, %d accessors primed in %d ms",
+                entities, types, paths, methods, elapsedMillis);
+        }
+    }
+}
@@ -37,4 +37,16 @@ public final class Specifications {
     public static <T> PredicateBuilder<T> or() {
         return new PredicateBuilder<>(OR);
     }
+
+    /**
+     * 指定实体类，build 时即校验属性路径，无效路径抛出 IllegalArgumentException；
+     * 需要 Metamodel 已登记（使用 SimpleSpecificationRepository 或 SpecificationWarmUp 时自动登记）
+     */
+    public static <T> PredicateBuilder<T> and(Class<T> domainClass) {
+        return new PredicateBuilder<>(AND, domainClass);
+    }
+
+    public static <T> PredicateBuilder<T> or(Class<T> domainClass) {
+        return new PredicateBuilder<>(OR, domainClass);
+    }
 }
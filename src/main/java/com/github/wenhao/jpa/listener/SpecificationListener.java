@@ -0,0 +1,59 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.listener;
+
+/**
+ * 条件构造、渲染与执行的监听 SPI，通过 {@link SpecificationListeners#register} 注册。
+ * 回调在调用线程上同步执行，实现需要线程安全且足够轻量；耗时单位为纳秒
+ */
+public interface SpecificationListener {
+
+    /**
+     * build/compile 完成
+     * @param predicates 条件数，嵌套的 and/or 按其中的条件计数
+     */
+    default void onBuild(int predicates, long nanos) {
+    }
+
+    /**
+     * 顶层组合条件渲染完成，嵌套的组合条件不单独上报
+     * @param domainClass Root 的实体类
+     * @param predicates 条件数
+     * @param joins 渲染后 Root 上的 join 与 fetch 数（含多级）
+     */
+    default void onRender(Class<?> domainClass, int predicates, int joins, long nanos) {
+    }
+
+    /**
+     * 渲染一个 in/not in 条件
+     * @param size 值的个数（补齐后）
+     */
+    default void onInList(int size) {
+    }
+
+    /**
+     * 仓库执行器返回，执行失败时不上报；内部委托的执行器同样上报
+     * @param operation 执行器方法名，例如 findAll、count、findSlice
+     */
+    default void onExecute(Class<?> domainClass, String operation, long nanos) {
+    }
+}
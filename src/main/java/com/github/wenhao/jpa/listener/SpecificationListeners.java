@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.listener;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * 监听器注册表。没有监听器时各埋点只读取一次 volatile 数组，不计时、不统计、不分配内存
+ * <pre>
+ * long start = SpecificationListeners.start();
+ * ...
+ * if (start != 0L) {
+ *     SpecificationListeners.executed(domainClass, "findAll", start);
+ * }
+ * </pre>
+ */
+@Slf4j
+public final class SpecificationListeners {
+    private static final SpecificationListener[] NONE = new SpecificationListener[0];
+    private static volatile SpecificationListener[] listeners = NONE;
+
+    private SpecificationListeners() {
+    }
+
+    public static synchronized void register(SpecificationListener listener) {
+        SpecificationListener[] current = listeners;
+        SpecificationListener[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = listener;
+        listeners = next;
+    }
+
+    public static synchronized void unregister(SpecificationListener listener) {
+        SpecificationListener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                SpecificationListener[] next = new SpecificationListener[current.length - 1];
+                System.arraycopy(current, 0, next, 0, i);
+                System.arraycopy(current, i + 1, next, i, current.length - i - 1);
+                listeners = next.length == 0 ? NONE : next;
+                return;
+            }
+        }
+    }
+
+    public static boolean isEnabled() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * 埋点起始时间；没有监听器时为 0，调用方据此跳过统计
+     */
+    public static long start() {
+        return listeners.length == 0 ? 0L : System.nanoTime();
+    }
+
+    public static void built(int predicates, long start) {
+        long nanos = System.nanoTime() - start;
+        for (SpecificationListener listener : listeners) {
+            try {
+                listener.onBuild(predicates, nanos);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void rendered(Class<?> domainClass, int predicates, int joins, long start) {
+        long nanos = System.nanoTime() - start;
+        for (SpecificationListener listener : listeners) {
+            try {
+                listener.onRender(domainClass, predicates, joins, nanos);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void inList(int size) {
+        for (SpecificationListener listener : listeners) {
+            try {
+                listener.onInList(size);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    public static void executed(Class<?> domainClass, String operation, long start) {
+        long nanos = System.nanoTime() - start;
+        for (SpecificationListener listener : listeners) {
+            try {
+                listener.onExecute(domainClass, operation, nanos);
+            } catch (RuntimeException e) {
+                failed(listener, e);
+            }
+        }
+    }
+
+    /**
+     * 监听器的异常不影响查询
+     */
+    private static void failed(SpecificationListener listener, RuntimeException e) {
+        log.warn("Specification listener [{}] failed", listener, e);
+    }
+}
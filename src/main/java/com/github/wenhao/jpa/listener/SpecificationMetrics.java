@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.listener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 进程内统计，基于 {@link Histogram}，不依赖外部监控库
+ * <pre>
+ * SpecificationMetrics metrics = new SpecificationMetrics();
+ * SpecificationListeners.register(metrics);
+ * metrics.getRenderNanos().getPercentile(0.99);
+ * </pre>
+ */
+public class SpecificationMetrics implements SpecificationListener {
+    private final Histogram buildNanos = new Histogram();
+    private final Histogram renderNanos = new Histogram();
+    private final Histogram predicates = new Histogram();
+    private final Histogram joins = new Histogram();
+    private final Histogram inListSizes = new Histogram();
+    private final Set<Integer> inListShapes = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Histogram> executeNanos = new ConcurrentHashMap<>();
+
+    @Override
+    public void onBuild(int predicates, long nanos) {
+        buildNanos.record(nanos);
+    }
+
+    @Override
+    public void onRender(Class<?> domainClass, int predicates, int joins, long nanos) {
+        renderNanos.record(nanos);
+        this.predicates.record(predicates);
+        this.joins.record(joins);
+    }
+
+    @Override
+    public void onInList(int size) {
+        inListSizes.record(size);
+        if (!inListShapes.contains(size)) {
+            inListShapes.add(size);
+        }
+    }
+
+    @Override
+    public void onExecute(Class<?> domainClass, String operation, long nanos) {
+        Histogram histogram = executeNanos.get(operation);
+        if (histogram == null) {
+            histogram = executeNanos.computeIfAbsent(operation, key -> new Histogram());
+        }
+        histogram.record(nanos);
+    }
+
+    public Histogram getBuildNanos() {
+        return buildNanos;
+    }
+
+    public Histogram getRenderNanos() {
+        return renderNanos;
+    }
+
+    /**
+     * 每次渲染的条件数
+     */
+    public Histogram getPredicates() {
+        return predicates;
+    }
+
+    /**
+     * 每次渲染后的 join 数
+     */
+    public Histogram getJoins() {
+        return joins;
+    }
+
+    public Histogram getInListSizes() {
+        return inListSizes;
+    }
+
+    /**
+     * 渲染过的 in 形状（值的个数）种数，开启补齐后收敛到 log2(N) 种，见 {@link com.github.wenhao.jpa.specification.InClausePadding}
+     */
+    public int getInListShapes() {
+        return inListShapes.size();
+    }
+
+    /**
+     * 按执行器方法名的耗时
+     */
+    public Map<String, Histogram> getExecuteNanos() {
+        return Collections.unmodifiableMap(executeNanos);
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 键集分页的一页结果
+ */
+public class KeysetSlice<T> {
+    private final List<T> content;
+    private final boolean hasNext;
+    private final Object[] keys;
+    private final String continuation;
+
+    KeysetSlice(List<T> content, boolean hasNext, Object[] keys) {
+        this.content = Collections.unmodifiableList(content);
+        this.hasNext = hasNext;
+        this.keys = keys;
+        this.continuation = hasNext ? KeysetToken.encode(keys) : null;
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * 本页最后一行的排序键（含主键），没有下一页时为 null
+     */
+    public Object[] getKeys() {
+        return hasNext ? keys.clone() : null;
+    }
+
+    /**
+     * 取下一页的继续令牌，没有下一页时为 null
+     */
+    public String getContinuation() {
+        return continuation;
+    }
+}
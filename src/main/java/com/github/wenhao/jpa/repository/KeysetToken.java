@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * 键集分页继续令牌的编解码
+ * <p>
+ * 令牌只包含排序键的字符串形式，解码时按排序属性的类型还原，不做 Java 反序列化，可以安全地交给客户端。
+ * 支持字符串、数值、布尔、字符、枚举、UUID、{@link Date} 及 java.time 的日期时间类型。
+ * {@link Timestamp} 按 ISO-8601 编码以保留纳秒，其他 {@link Date} 按毫秒编码。
+ */
+final class KeysetToken {
+    private static final String SEPARATOR = ".";
+
+    private KeysetToken() {
+    }
+
+    static String encode(Object[] keys) {
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                token.append(SEPARATOR);
+            }
+            String value = keys[i] instanceof Timestamp ? ((Timestamp) keys[i]).toInstant().toString()
+                    : keys[i] instanceof Date ? String.valueOf(((Date) keys[i]).getTime())
+                    : keys[i] instanceof Enum ? ((Enum<?>) keys[i]).name()
+                    : String.valueOf(keys[i]);
+            token.append(Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return token.toString();
+    }
+
+    /**
+     * @param token 继续令牌
+     * @param types 各排序属性的类型
+     * @return 排序键
+     * @throws IllegalArgumentException 令牌无效
+     */
+    static Object[] decode(String token, Class<?>[] types) {
+        String[] parts = token.split("\\" + SEPARATOR, -1);
+        if (parts.length != types.length) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token);
+        }
+        Object[] keys = new Object[parts.length];
+        try {
+            for (int i = 0; i < parts.length; i++) {
+                keys[i] = convert(new String(Base64.getUrlDecoder().decode(parts[i]), StandardCharsets.UTF_8), types[i]);
+            }
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid continuation token: " + token, e);
+        }
+        return keys;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convert(String value, Class<?> type) {
+        if (type == String.class) {
+            return value;
+        }
+        if (type == Long.class || type == long.class) {
+            return Long.valueOf(value);
+        }
+        if (type == Integer.class || type == int.class) {
+            return Integer.valueOf(value);
+        }
+        if (type == Short.class || type == short.class) {
+            return Short.valueOf(value);
+        }
+        if (type == Byte.class || type == byte.class) {
+            return Byte.valueOf(value);
+        }
+        if (type == Double.class || type == double.class) {
+            return Double.valueOf(value);
+        }
+        if (type == Float.class || type == float.class) {
+            return Float.valueOf(value);
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return Boolean.valueOf(value);
+        }
+        if (type == Character.class || type == char.class) {
+            return value.charAt(0);
+        }
+        if (type == BigDecimal.class) {
+            return new BigDecimal(value);
+        }
+        if (type == BigInteger.class) {
+            return new BigInteger(value);
+        }
+        if (type == UUID.class) {
+            return UUID.fromString(value);
+        }
+        if (type.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) type, value);
+        }
+        if (type == Timestamp.class || type == Date.class && isInstant(value)) {
+            return isInstant(value) ? Timestamp.from(Instant.parse(value)) : new Timestamp(Long.parseLong(value));
+        }
+        if (type == java.sql.Date.class) {
+            return new java.sql.Date(Long.parseLong(value));
+        }
+        if (type == java.sql.Time.class) {
+            return new java.sql.Time(Long.parseLong(value));
+        }
+        if (type == Date.class) {
+            return new Date(Long.parseLong(value));
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.parse(value);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.parse(value);
+        }
+        if (type == LocalTime.class) {
+            return LocalTime.parse(value);
+        }
+        if (type == Instant.class) {
+            return Instant.parse(value);
+        }
+        if (type == OffsetDateTime.class) {
+            return OffsetDateTime.parse(value);
+        }
+        if (type == ZonedDateTime.class) {
+            return ZonedDateTime.parse(value);
+        }
+        throw new IllegalArgumentException("Unsupported keyset type: " + type.getName());
+    }
+
+    /**
+     * Date 类型的属性也可能取到 Timestamp 值，需要按值的格式区分
+     */
+    private static boolean isInstant(String value) {
+        return value.indexOf('T') > 0;
+    }
+}
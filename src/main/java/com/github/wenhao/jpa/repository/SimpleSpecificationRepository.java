@@ -0,0 +1,782 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import com.github.wenhao.jpa.Assignments;
+import com.github.wenhao.jpa.ComposedSpecification;
+import com.github.wenhao.jpa.ExecutionHints;
+import com.github.wenhao.jpa.Projection;
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import com.github.wenhao.jpa.specification.ContextualSpecification;
+import com.github.wenhao.jpa.specification.EntityTypes;
+import com.github.wenhao.jpa.specification.Fingerprint;
+import com.github.wenhao.jpa.specification.InSpecification;
+import com.github.wenhao.jpa.specification.JoinRegistry;
+import com.github.wenhao.jpa.specification.KeysetSpecification;
+import com.github.wenhao.jpa.specification.PropertyPaths;
+import com.github.wenhao.jpa.specification.SpecificationContext;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * {@link SpecificationRepository} 的默认实现
+ * <p>
+ * 编译模式的 Specification 以参数模式渲染，查询创建后绑定比较值。
+ * 超大 in 列表可以通过 {@link #findAllInChunks(Specification, Sort)} 分批依次执行，
+ * 或通过 {@link #findAllInChunksInParallel(Specification, Sort, int)} 分批并发执行。
+ * 静态可知恒假的条件（如空的 in，见 {@link ContextualSpecification#isUnsatisfiable()}）不查询数据库，直接返回空结果。
+ * 条件携带的查询提示（{@link ComposedSpecification#getHints()}）设置到由它创建的每个查询上。
+ */
+public class SimpleSpecificationRepository<T, ID> extends SimpleJpaRepository<T, ID> implements SpecificationRepository<T, ID> {
+    /**
+     * 流式读取默认的 JDBC fetch size
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager entityManager;
+    private volatile TransactionTemplate readOnlyTransaction;
+    private volatile SpecificationCache specificationCache = new SpecificationCache();
+
+    public SimpleSpecificationRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.entityManager = entityManager;
+        PropertyPaths.register(entityManager.getMetamodel());
+    }
+
+    @Override
+    public List<T> findAllInChunks(Specification<T> spec, Sort sort) {
+        return findAllInChunks(spec, sort, InSpecification.CHUNK_SIZE);
+    }
+
+    @Override
+    public Optional<T> findOne(Specification<T> spec) {
+        long start = SpecificationListeners.start();
+        return executed("findOne", start, ContextualSpecification.unsatisfiable(spec) ? Optional.empty() : super.findOne(spec));
+    }
+
+    @Override
+    public List<T> findAll(Specification<T> spec) {
+        long start = SpecificationListeners.start();
+        return executed("findAll", start, ContextualSpecification.unsatisfiable(spec) ? Collections.emptyList() : super.findAll(spec));
+    }
+
+    @Override
+    public Page<T> findAll(Specification<T> spec, Pageable pageable) {
+        long start = SpecificationListeners.start();
+        return executed("findAll", start, ContextualSpecification.unsatisfiable(spec) ? new PageImpl<>(Collections.emptyList(), pageable, 0) : super.findAll(spec, pageable));
+    }
+
+    @Override
+    public List<T> findAll(Specification<T> spec, Sort sort) {
+        long start = SpecificationListeners.start();
+        return executed("findAll", start, ContextualSpecification.unsatisfiable(spec) ? Collections.emptyList() : super.findAll(spec, sort));
+    }
+
+    @Override
+    public long count(Specification<T> spec) {
+        long start = SpecificationListeners.start();
+        long count = ContextualSpecification.unsatisfiable(spec) ? 0 : super.count(spec);
+        executed("count", start);
+        return count;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<T> findAllInChunks(Specification<T> spec, Sort sort, int chunkSize) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return Collections.emptyList();
+        }
+        InSpecification<?> target = largestIn(spec, chunkSize);
+        if (target == null) {
+            return findAll(spec, sort);
+        }
+        checkMergeable(sort);
+        long start = SpecificationListeners.start();
+        List<List<T>> results = new ArrayList<>();
+        for (List<Object> chunk : InSpecification.partition(target.getValues(), chunkSize)) {
+            results.add(applyHints(createQuery(spec, getDomainClass(), sort, newContext(spec).replace(target, chunk)), spec).getResultList());
+        }
+        return executed("findAllInChunks", start, merge(results, sort));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<T> findAllInChunksInParallel(Specification<T> spec, Sort sort, int chunkSize) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return Collections.emptyList();
+        }
+        InSpecification<?> target = largestIn(spec, chunkSize);
+        if (target == null) {
+            return findAll(spec, sort);
+        }
+        checkMergeable(sort);
+        TransactionTemplate readOnlyTransaction = readOnlyTransaction("findAllInChunksInParallel");
+        long start = SpecificationListeners.start();
+        List<Callable<List<T>>> tasks = new ArrayList<>();
+        // 每批在工作线程上开启各自的只读事务，使用各自的 EntityManager 与连接
+        for (List<Object> chunk : InSpecification.partition(target.getValues(), chunkSize)) {
+            tasks.add(() -> readOnlyTransaction.execute(status ->
+                    applyHints(createQuery(spec, getDomainClass(), sort, newContext(spec).replace(target, chunk)), spec).getResultList()));
+        }
+        return executed("findAllInChunksInParallel", start, merge(ConcurrentQueries.invokeAll(tasks), sort));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Page<T> findAllInParallel(Specification<T> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return findAll(spec, pageable);
+        }
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        TransactionTemplate readOnlyTransaction = readOnlyTransaction("findAllInParallel");
+        long start = SpecificationListeners.start();
+        List<Callable<Object>> tasks = new ArrayList<>(2);
+        // 每条查询在工作线程上开启各自的只读事务，使用各自的 EntityManager 与连接
+        tasks.add(() -> readOnlyTransaction.execute(status -> createQuery(spec, getDomainClass(), pageable.getSort(), newContext(spec))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList()));
+        tasks.add(() -> readOnlyTransaction.execute(status -> createCountQuery(spec, getDomainClass(), newContext(spec)).getSingleResult()));
+        List<Object> results = ConcurrentQueries.invokeAll(tasks);
+        @SuppressWarnings("unchecked")
+        List<T> content = (List<T>) results.get(0);
+        return executed("findAllInParallel", start, new PageImpl<>(content, pageable, (Long) results.get(1)));
+    }
+
+    @Override
+    public KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size) {
+        return findSlice(spec, sort, size, (Object[]) null);
+    }
+
+    @Override
+    public KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size, String continuation) {
+        Object[] keys = continuation == null ? null : KeysetToken.decode(continuation, keysetTypes(keysetSort(sort)));
+        return findSlice(spec, sort, size, keys);
+    }
+
+    @Override
+    public KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size, Object[] keys) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Slice size must not be less than one");
+        }
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return new KeysetSlice<>(Collections.emptyList(), false, null);
+        }
+        long start = SpecificationListeners.start();
+        Sort keyset = keysetSort(sort);
+        Specification<T> seek = keys == null ? spec : new KeysetSpecification<>(spec, keyset, keys);
+        List<T> content = applyHints(createQuery(seek, getDomainClass(), keyset, newContext(spec)), spec)
+                .setMaxResults(size + 1)
+                .getResultList();
+        if (content.size() <= size) {
+            return executed("findSlice", start, new KeysetSlice<>(content, false, null));
+        }
+        content = new ArrayList<>(content.subList(0, size));
+        return executed("findSlice", start, new KeysetSlice<>(content, true, keys(content.get(size - 1), keyset)));
+    }
+
+    @Override
+    public <R> List<R> findAllProjected(Specification<T> spec, Class<R> type, Sort sort) {
+        return findAllProjected(spec, Projection.of(type), sort);
+    }
+
+    @Override
+    public <R> List<R> findAllProjected(Specification<T> spec, Projection<T, R> projection, Sort sort) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return Collections.emptyList();
+        }
+        long start = SpecificationListeners.start();
+        SpecificationContext context = newContext(spec);
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<T> root = query.from(getDomainClass());
+        // 只查询投影的列，根实体不在 select 中，不能抓取关联
+        where(spec, root, query, cb, context.withoutFetch());
+        List<String> properties = projection.getProperties();
+        Selection<?>[] selections = new Selection<?>[properties.size()];
+        for (int i = 0; i < selections.length; i++) {
+            selections[i] = JoinRegistry.path(root, properties.get(i));
+        }
+        query.multiselect(selections);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        List<?> rows = applyHints(context.bind(entityManager.createQuery(query)), spec).getResultList();
+        List<R> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            // 只有一列时 Hibernate 直接返回列值
+            result.add(projection.map(selections.length == 1 ? new Object[] {row} : (Object[]) row));
+        }
+        return executed("findAllProjected", start, result);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<T> stream(Specification<T> spec, Sort sort) {
+        Object fetchSize = hints(spec).get(ExecutionHints.FETCH_SIZE);
+        return stream(spec, sort, fetchSize instanceof Integer ? (Integer) fetchSize : DEFAULT_FETCH_SIZE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<T> stream(Specification<T> spec, Sort sort, int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must not be less than one");
+        }
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return Stream.empty();
+        }
+        Stream<T> results = createQuery(spec, getDomainClass(), sort, newContext(spec))
+                .setHint(ExecutionHints.FETCH_SIZE, fetchSize)
+                .setHint(ExecutionHints.READ_ONLY, true)
+                .getResultStream();
+        Iterator<T> rows = results.iterator();
+        Iterator<T> iterator = new Iterator<T>() {
+            private final List<T> batch = new ArrayList<>(Math.min(fetchSize, DEFAULT_FETCH_SIZE));
+
+            @Override
+            public boolean hasNext() {
+                // 在游标前进之前游离上一批实体，持久化上下文中的其它实体及其未 flush 的修改不受影响
+                if (batch.size() >= fetchSize) {
+                    batch.forEach(entityManager::detach);
+                    batch.clear();
+                }
+                return rows.hasNext();
+            }
+
+            @Override
+            public T next() {
+                T row = rows.next();
+                batch.add(row);
+                return row;
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(results::close);
+    }
+
+    @Override
+    @Transactional
+    public int update(Specification<T> spec, Assignments<T> assignments) {
+        if (assignments == null || assignments.isEmpty()) {
+            throw new IllegalArgumentException("Assignments must not be empty");
+        }
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return 0;
+        }
+        long start = SpecificationListeners.start();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        int updated = executeBulk(spec, where -> {
+            CriteriaUpdate<T> update = cb.createCriteriaUpdate(getDomainClass());
+            Root<T> root = update.from(getDomainClass());
+            assignments.getValues().forEach((property, value) -> assign(update, attribute(root, property), value, cb));
+            Predicate predicate = where.apply(root);
+            if (predicate != null) {
+                update.where(predicate);
+            }
+            return entityManager.createQuery(update);
+        });
+        SpecificationCache.invalidate(getDomainClass());
+        executed("update", start);
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public int bulkDelete(Specification<T> spec) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return 0;
+        }
+        long start = SpecificationListeners.start();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        int deleted = executeBulk(spec, where -> {
+            CriteriaDelete<T> delete = cb.createCriteriaDelete(getDomainClass());
+            Predicate predicate = where.apply(delete.from(getDomainClass()));
+            if (predicate != null) {
+                delete.where(predicate);
+            }
+            return entityManager.createQuery(delete);
+        });
+        SpecificationCache.invalidate(getDomainClass());
+        executed("bulkDelete", start);
+        return deleted;
+    }
+
+    @Override
+    public List<T> findAllCached(Specification<T> spec, Sort sort) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return Collections.emptyList();
+        }
+        if (spec != null && Fingerprint.of(spec) == null) {
+            return findAll(spec, sort);
+        }
+        List<List<T>> loaded = new ArrayList<>(1);
+        List<Object> ids = specificationCache.get(Arrays.asList(getDomainClass(), "findAll", Fingerprint.of(spec), sort),
+                () -> entityTypes(spec), () -> {
+                    List<T> content = findAll(spec, sort);
+                    loaded.add(content);
+                    return ids(content);
+                }, isCacheable());
+        return loaded.isEmpty() ? findAllInOrder(ids) : loaded.get(0);
+    }
+
+    /**
+     * 实体的 id，按结果的顺序，不可修改
+     */
+    private List<Object> ids(List<T> content) {
+        List<Object> ids = new ArrayList<>(content.size());
+        for (T entity : content) {
+            ids.add(entityInformation.getId(entity));
+        }
+        return Collections.unmodifiableList(ids);
+    }
+
+    /**
+     * 按 id 在当前持久化上下文中重新加载实体，按 id 的顺序返回；每 {@link InSpecification#CHUNK_SIZE} 个 id 一条主键查询，
+     * 已不存在的实体被跳过
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> findAllInOrder(List<Object> ids) {
+        Map<Object, T> entities = new HashMap<>(ids.size() * 2);
+        for (List<Object> chunk : InSpecification.partition(ids, InSpecification.CHUNK_SIZE)) {
+            for (T entity : findAllById((Iterable<ID>) (List<?>) chunk)) {
+                entities.put(entityInformation.getId(entity), entity);
+            }
+        }
+        List<T> result = new ArrayList<>(ids.size());
+        for (Object id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long countCached(Specification<T> spec) {
+        if (ContextualSpecification.unsatisfiable(spec)) {
+            return 0;
+        }
+        if (spec != null && Fingerprint.of(spec) == null) {
+            return count(spec);
+        }
+        return specificationCache.get(Arrays.asList(getDomainClass(), "count", Fingerprint.of(spec)),
+                () -> entityTypes(spec), () -> count(spec), isCacheable());
+    }
+
+    /**
+     * 监听器开启时上报一次执行，start 为 0 表示未开启；执行失败时不上报
+     */
+    private void executed(String operation, long start) {
+        if (start != 0L) {
+            SpecificationListeners.executed(getDomainClass(), operation, start);
+        }
+    }
+
+    private <R> R executed(String operation, long start, R result) {
+        executed(operation, start);
+        return result;
+    }
+
+    /**
+     * 设置并发查询使用的事务管理器，通常是应用上下文中的事务管理器，
+     * 由 {@link SpecificationRepositoryFactoryBean} 在创建仓库时设置
+     * @param transactionManager 事务管理器
+     */
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        this.readOnlyTransaction = template;
+    }
+
+    @Override
+    public SpecificationCache getSpecificationCache() {
+        return specificationCache;
+    }
+
+    @Override
+    public void setSpecificationCache(SpecificationCache cache) {
+        this.specificationCache = cache;
+    }
+
+    @Override
+    protected <S extends T> TypedQuery<S> getQuery(Specification<S> spec, Class<S> domainClass, Sort sort) {
+        if (!isCompiled(spec)) {
+            return applyHints(super.getQuery(spec, domainClass, sort), spec);
+        }
+        SpecificationContext context = SpecificationContext.parameterized();
+        return applyHints(context.bind(super.getQuery(ContextualSpecification.render(spec, context), domainClass, sort)), spec);
+    }
+
+    @Override
+    protected <S extends T> TypedQuery<Long> getCountQuery(Specification<S> spec, Class<S> domainClass) {
+        SpecificationContext context = newContext(spec);
+        return applyHints(context.bind(super.getCountQuery(ContextualSpecification.render(spec, context.forCount()), domainClass)), spec);
+    }
+
+    /**
+     * 不依赖调用线程状态创建查询，可以在其它线程中使用；不应用仓库方法上的锁与查询提示
+     */
+    protected <S extends T> TypedQuery<S> createQuery(Specification<S> spec, Class<S> domainClass, Sort sort, SpecificationContext context) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<S> query = cb.createQuery(domainClass);
+        Root<S> root = query.from(domainClass);
+        where(spec, root, query, cb, context);
+        query.select(root);
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return applyHints(context.bind(entityManager.createQuery(query)), spec);
+    }
+
+    /**
+     * 与 {@link #createQuery(Specification, Class, Sort, SpecificationContext)} 一样不依赖调用线程状态
+     */
+    protected <S extends T> TypedQuery<Long> createCountQuery(Specification<S> spec, Class<S> domainClass, SpecificationContext context) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<S> root = query.from(domainClass);
+        where(spec, root, query, cb, context.forCount());
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        query.orderBy(Collections.emptyList());
+        return applyHints(context.bind(entityManager.createQuery(query)), spec);
+    }
+
+    /**
+     * 设置条件携带的查询提示，见 {@link ComposedSpecification#getHints()}
+     */
+    private static <Q extends Query> Q applyHints(Q query, Specification<?> spec) {
+        hints(spec).forEach(query::setHint);
+        return query;
+    }
+
+    private static Map<String, Object> hints(Specification<?> spec) {
+        return spec instanceof ComposedSpecification ? ((ComposedSpecification<?>) spec).getHints() : Collections.emptyMap();
+    }
+
+    private static <S> void where(Specification<S> spec, Root<S> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        if (spec != null) {
+            Predicate predicate = ContextualSpecification.render(spec, context).toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+    }
+
+    /**
+     * 执行 update/delete，条件只渲染一次。
+     * <p>
+     * 条件不经过关联时直接作为语句的 where，以字面量模式渲染（JPA 实现不一定支持在 update/delete 上绑定
+     * {@code ParameterExpression}），抓取被忽略。update/delete 语句不能 join，MySQL 也不允许子查询读取被修改的表，
+     * 所以条件经过关联（或是无法识别路径的自定义条件）时先查询主键，再按 {@link InSpecification#CHUNK_SIZE} 分批以
+     * {@code id in (...)} 执行。
+     * @param statement 由 where（Root -> 条件，可能返回 null）创建语句
+     * @return 影响的行数
+     */
+    private int executeBulk(Specification<T> spec, Function<Function<Root<T>, Predicate>, Query> statement) {
+        if (spec == null) {
+            return statement.apply(root -> null).executeUpdate();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        if (!throughAssociation(spec)) {
+            Specification<T> rendered = ContextualSpecification.render(spec, SpecificationContext.literal().withoutFetch());
+            CriteriaQuery<Long> shape = cb.createQuery(Long.class);
+            return statement.apply(root -> rendered.toPredicate(root, shape, cb)).executeUpdate();
+        }
+        if (entityInformation.hasCompositeId() || entityInformation.getIdAttribute() == null) {
+            throw new IllegalArgumentException("Bulk statements with conditions through associations require a single id attribute on "
+                    + getDomainClass().getName());
+        }
+        String id = entityInformation.getIdAttribute().getName();
+        SpecificationContext context = newContext(spec).withoutFetch();
+        CriteriaQuery<Object> query = cb.createQuery(Object.class);
+        Root<T> root = query.from(getDomainClass());
+        where(spec, root, query, cb, context);
+        query.select(root.get(id)).distinct(true);
+        List<Object> ids = context.bind(entityManager.createQuery(query)).getResultList();
+        int affected = 0;
+        for (int from = 0; from < ids.size(); from += InSpecification.CHUNK_SIZE) {
+            List<Object> chunk = ids.subList(from, Math.min(from + InSpecification.CHUNK_SIZE, ids.size()));
+            affected += statement.apply(target -> target.get(id).in(chunk)).executeUpdate();
+        }
+        return affected;
+    }
+
+    /**
+     * 条件路径是否经过关联或集合；包含无法识别路径的自定义条件时按经过关联处理
+     */
+    private boolean throughAssociation(Specification<T> spec) {
+        Set<String> paths = ContextualSpecification.paths(spec);
+        if (paths == null) {
+            return true;
+        }
+        ManagedType<T> type = entityManager.getMetamodel().managedType(getDomainClass());
+        for (String path : paths) {
+            for (Attribute<?, ?> attribute : PropertyPaths.resolve(type, path)) {
+                if (attribute.isAssociation() || attribute.isCollection()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <Y> void assign(CriteriaUpdate<?> update, Path<Y> path, Object value, CriteriaBuilder cb) {
+        Expression<? extends Y> expression = value == null ? cb.nullLiteral(path.getJavaType()) : cb.literal((Y) value);
+        update.set(path, expression);
+    }
+
+    private Collection<Class<?>> entityTypes(Specification<T> spec) {
+        return EntityTypes.of(spec, entityManager.getMetamodel().entity(getDomainClass()));
+    }
+
+    /**
+     * 并发查询在工作线程上使用的只读事务；调用方处于读写事务中时拒绝执行，
+     * 因为工作线程使用各自的连接，读不到调用方尚未提交的修改
+     */
+    private TransactionTemplate readOnlyTransaction(String operation) {
+        TransactionTemplate template = readOnlyTransaction;
+        if (template == null) {
+            throw new IllegalStateException(operation + " requires a transaction manager, configure "
+                    + "@EnableJpaRepositories(repositoryFactoryBeanClass = SpecificationRepositoryFactoryBean.class) "
+                    + "or call setTransactionManager");
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            throw new IllegalStateException(operation + " must not be called in a read-write transaction, "
+                    + "its queries run on other connections and cannot see uncommitted changes");
+        }
+        return template;
+    }
+
+    /**
+     * 只缓存只读事务中或事务外加载的结果，避免缓存其它事务尚未提交的数据
+     */
+    private static boolean isCacheable() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    /**
+     * 实体自身或嵌入对象的属性，不经过关联
+     */
+    private static Path<?> attribute(Root<?> root, String property) {
+        Path<?> path = root;
+        for (String name : StringUtils.delimitedListToStringArray(property, ".")) {
+            path = path.get(name);
+        }
+        return path;
+    }
+
+    /**
+     * sort 中没有主键时追加主键升序作为唯一的排序
+     */
+    private Sort keysetSort(Sort sort) {
+        KeysetSpecification.checkSort(sort);
+        if (entityInformation.hasCompositeId() || entityInformation.getIdAttribute() == null) {
+            return sort;
+        }
+        String id = entityInformation.getIdAttribute().getName();
+        return sort.getOrderFor(id) != null ? sort : sort.and(Sort.by(id));
+    }
+
+    private Class<?>[] keysetTypes(Sort sort) {
+        Root<T> root = entityManager.getCriteriaBuilder().createQuery(getDomainClass()).from(getDomainClass());
+        return sort.stream()
+                .map(order -> JoinRegistry.path(root, order.getProperty()).getJavaType())
+                .toArray(Class<?>[]::new);
+    }
+
+    private static Object[] keys(Object entity, Sort sort) {
+        BeanWrapperImpl wrapper = new BeanWrapperImpl(entity);
+        return sort.stream()
+                .map(order -> wrapper.getPropertyValue(order.getProperty()))
+                .toArray();
+    }
+
+    private static SpecificationContext newContext(Specification<?> spec) {
+        return isCompiled(spec) ? SpecificationContext.parameterized() : SpecificationContext.literal();
+    }
+
+    private static boolean isCompiled(Specification<?> spec) {
+        return spec instanceof ComposedSpecification && ((ComposedSpecification<?>) spec).isCompiled();
+    }
+
+    /**
+     * 找出值个数最多且超过 chunkSize 的 in 条件。
+     * 组合条件只有 and/or，拆分单个 in 后各批结果的并集等于原结果；not in 不能这样拆分。
+     */
+    private static InSpecification<?> largestIn(Specification<?> spec, int chunkSize) {
+        if (spec instanceof ComposedSpecification) {
+            InSpecification<?> largest = null;
+            for (Specification<?> child : ((ComposedSpecification<?>) spec).getSpecifications()) {
+                InSpecification<?> candidate = largestIn(child, chunkSize);
+                if (candidate != null && (largest == null || candidate.getValues().size() > largest.getValues().size())) {
+                    largest = candidate;
+                }
+            }
+            return largest;
+        }
+        if (spec != null && spec.getClass() == InSpecification.class) {
+            Collection<?> values = ((InSpecification<?>) spec).getValues();
+            return values != null && values.size() > chunkSize ? (InSpecification<?>) spec : null;
+        }
+        return null;
+    }
+
+    /**
+     * 合并各批结果：有排序时按排序归并，同一实体只保留一次
+     */
+    private List<T> merge(List<List<T>> results, Sort sort) {
+        List<T> merged = new ArrayList<>();
+        Set<Object> ids = new HashSet<>();
+        if (sort.isUnsorted()) {
+            for (List<T> result : results) {
+                for (T entity : result) {
+                    if (ids.add(entityInformation.getId(entity))) {
+                        merged.add(entity);
+                    }
+                }
+            }
+            return merged;
+        }
+        Comparator<T> comparator = comparator(sort);
+        // {结果序号, 位置}
+        PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> {
+            int compare = comparator.compare(results.get(a[0]).get(a[1]), results.get(b[0]).get(b[1]));
+            return compare != 0 ? compare : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < results.size(); i++) {
+            if (!results.get(i).isEmpty()) {
+                heads.add(new int[] {i, 0});
+            }
+        }
+        while (!heads.isEmpty()) {
+            int[] head = heads.poll();
+            List<T> result = results.get(head[0]);
+            T entity = result.get(head[1]);
+            if (ids.add(entityInformation.getId(entity))) {
+                merged.add(entity);
+            }
+            if (head[1] + 1 < result.size()) {
+                heads.add(new int[] {head[0], head[1] + 1});
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 各批结果在内存中归并，只支持 Java 中的顺序与数据库一致的属性：数值、布尔与日期时间。
+     * 字符串的顺序取决于数据库的排序规则，不能归并。
+     */
+    private void checkMergeable(Sort sort) {
+        ManagedType<T> type = entityManager.getMetamodel().managedType(getDomainClass());
+        for (Sort.Order order : sort) {
+            List<Attribute<?, ?>> attributes = PropertyPaths.resolve(type, order.getProperty());
+            Class<?> javaType = ClassUtils.resolvePrimitiveIfNecessary(attributes.get(attributes.size() - 1).getJavaType());
+            if (!Number.class.isAssignableFrom(javaType) && javaType != Boolean.class && !Date.class.isAssignableFrom(javaType)
+                    && !Calendar.class.isAssignableFrom(javaType) && !Temporal.class.isAssignableFrom(javaType)) {
+                throw new IllegalArgumentException("Unable to merge chunks sorted by [" + order.getProperty()
+                        + "]: only numeric, boolean and temporal attributes sort the same in memory as in the database");
+            }
+        }
+    }
+
+    /**
+     * 与 Sort 一致的比较器。条件查询的排序不支持 NullHandling，null 的位置由数据库决定，遇到 null 时无法归并
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<T> next = (a, b) -> {
+                Object left = new BeanWrapperImpl(a).getPropertyValue(order.getProperty());
+                Object right = new BeanWrapperImpl(b).getPropertyValue(order.getProperty());
+                if (left == null || right == null) {
+                    throw new IllegalStateException("Unable to merge chunks sorted by [" + order.getProperty()
+                            + "]: the position of null values is database specific");
+                }
+                int compare = ((Comparable<Object>) left).compareTo(right);
+                return order.isAscending() ? compare : -compare;
+            };
+            comparator = comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+}
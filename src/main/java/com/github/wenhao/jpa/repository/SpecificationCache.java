@@ -0,0 +1,222 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 条件查询的结果缓存，见 {@link SpecificationRepository#findAllCached(org.springframework.data.jpa.domain.Specification, org.springframework.data.domain.Sort)}
+ * <p>
+ * 按键的哈希分段加锁，每段是按访问顺序淘汰的 LRU，容量超出 maximumSize 或存活超过 timeToLive 的结果被淘汰。
+ * <p>
+ * 失效以实体类型为单位：每个实体类型有一个版本号（以 {@link ClassValue} 保存在实体类上，随类加载器一起回收），
+ * 结果记录加载前所涉及类型（Root 以及条件经过的关联）的版本号，
+ * 任一类型的版本号变化后结果失效。版本号由 {@link SpecificationCacheListener} 在实体新增、修改、删除时递增，
+ * 所在事务结束时再递增一次，事务提交前并发加载到的旧数据同样失效。
+ * 不经过实体生命周期的写入（原生 SQL、JPQL 批量语句）需要调用 {@link #invalidate(Class)}；
+ * {@link SpecificationRepository#update} 与 {@link SpecificationRepository#delete} 会自动调用。
+ */
+public final class SpecificationCache {
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static final int STRIPES = 16;
+    private static final ClassValue<AtomicLong> GENERATIONS = new ClassValue<AtomicLong>() {
+        @Override
+        protected AtomicLong computeValue(Class<?> type) {
+            return new AtomicLong();
+        }
+    };
+
+    private final Stripe[] stripes;
+    private final long timeToLive;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public SpecificationCache() {
+        this(DEFAULT_MAXIMUM_SIZE, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param maximumSize 最多缓存的结果个数
+     * @param timeToLive 结果的最长存活时间
+     */
+    public SpecificationCache(int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must not be less than one");
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive");
+        }
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe((maximumSize + STRIPES - 1) / STRIPES);
+        }
+        this.timeToLive = timeToLive.toNanos();
+    }
+
+    /**
+     * 使涉及该实体类型（及其父类）的结果失效；在事务中调用时，事务结束时再失效一次
+     */
+    public static void invalidate(Class<?> type) {
+        increment(type);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    increment(type);
+                }
+            });
+        }
+    }
+
+    private static void increment(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            GENERATIONS.get(current).incrementAndGet();
+        }
+    }
+
+    private static long[] generations(Class<?>[] types) {
+        long[] generations = new long[types.length];
+        for (int i = 0; i < types.length; i++) {
+            generations[i] = GENERATIONS.get(types[i]).get();
+        }
+        return generations;
+    }
+
+    /**
+     * 取得缓存的结果，没有或已失效时加载
+     * @param key 结果的键
+     * @param types 结果涉及的实体类型，只在加载时计算，为 null 时不缓存
+     * @param loader 加载结果
+     * @param store 是否缓存新加载的结果
+     */
+    @SuppressWarnings("unchecked")
+    <R> R get(Object key, Supplier<Collection<Class<?>>> types, Supplier<R> loader, boolean store) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (STRIPES - 1)];
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            Entry entry = stripe.get(key);
+            if (entry != null) {
+                if (entry.isValid(now)) {
+                    hits.increment();
+                    return (R) entry.value;
+                }
+                stripe.remove(key);
+            }
+        }
+        misses.increment();
+        Collection<Class<?>> dependencyTypes = store ? types.get() : null;
+        if (dependencyTypes == null) {
+            return loader.get();
+        }
+        Class<?>[] dependencies = dependencyTypes.toArray(new Class<?>[0]);
+        long[] generations = generations(dependencies);
+        R value = loader.get();
+        synchronized (stripe) {
+            stripe.put(key, new Entry(value, dependencies, generations, now + timeToLive));
+        }
+        return value;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 当前缓存的结果个数，包括尚未清理的失效结果
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+        private final Object value;
+        private final Class<?>[] types;
+        private final long[] generations;
+        private final long expiresAt;
+
+        Entry(Object value, Class<?>[] types, long[] generations, long expiresAt) {
+            this.value = value;
+            this.types = types;
+            this.generations = generations;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isValid(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            for (int i = 0; i < types.length; i++) {
+                if (GENERATIONS.get(types[i]).get() != generations[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Stripe extends LinkedHashMap<Object, Entry> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import com.github.wenhao.jpa.Assignments;
+import com.github.wenhao.jpa.Projection;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 执行 jpa-spec 条件的仓库接口
+ * <p>
+ * 实现由 {@link SimpleSpecificationRepository} 提供，需要在配置中指定：
+ * <pre>
+ * &#64;EnableJpaRepositories(repositoryBaseClass = SimpleSpecificationRepository.class,
+ *         repositoryFactoryBeanClass = SpecificationRepositoryFactoryBean.class)
+ * </pre>
+ * {@link SpecificationRepositoryFactoryBean} 为并发查询设置应用上下文中的事务管理器。
+ */
+@NoRepositoryBean
+public interface SpecificationRepository<T, ID> extends JpaRepository<T, ID>, JpaSpecificationExecutor<T> {
+
+    /**
+     * 按 {@link com.github.wenhao.jpa.specification.InSpecification#CHUNK_SIZE} 分批执行超大的 in 列表
+     * @see #findAllInChunks(Specification, Sort, int)
+     */
+    List<T> findAllInChunks(Specification<T> spec, Sort sort);
+
+    /**
+     * 分批执行超大的 in 列表
+     * <p>
+     * 值个数最多且超过 chunkSize 的 in 条件被拆分成多批，每批一条查询，在同一个只读事务中依次执行（已有事务时加入该事务），
+     * 结果按 sort 归并、按主键去重。没有超大 in 时与 {@link #findAll(Specification, Sort)} 相同。
+     * 并发执行见 {@link #findAllInChunksInParallel(Specification, Sort, int)}。
+     * <p>
+     * 各批结果在内存中归并：sort 只能使用数值、布尔与日期时间属性，否则抛出 IllegalArgumentException；
+     * null 在数据库中的位置无法确定，排序属性遇到 null 时抛出 IllegalStateException。
+     * 各批是否读到同一个快照取决于事务的隔离级别。
+     * @param spec 查询条件
+     * @param sort 排序
+     * @param chunkSize 每批 in 的最大值个数
+     * @return 合并后的结果
+     */
+    List<T> findAllInChunks(Specification<T> spec, Sort sort, int chunkSize);
+
+    /**
+     * 分批并发执行超大的 in 列表
+     * <p>
+     * 与 {@link #findAllInChunks(Specification, Sort, int)} 相同地拆分与归并，但各批在各自的线程、只读事务和 EntityManager 中并发执行，
+     * 同时执行的批数受并发查询的上限约束。事务由应用上下文中的事务管理器开启（见 {@link SpecificationRepositoryFactoryBean}），
+     * 没有事务管理器时抛出 IllegalStateException。
+     * <p>
+     * 各批使用各自的连接，只能读到已提交的数据，也不在同一个快照中执行，返回的实体处于游离状态。
+     * 在读写事务中调用时抛出 IllegalStateException，因为各批读不到该事务尚未提交的修改。
+     * @param spec 查询条件
+     * @param sort 排序
+     * @param chunkSize 每批 in 的最大值个数
+     * @return 合并后的结果
+     */
+    List<T> findAllInChunksInParallel(Specification<T> spec, Sort sort, int chunkSize);
+
+    /**
+     * 并发执行分页的内容查询和计数查询
+     * <p>
+     * 两条查询在各自的线程、只读事务和 EntityManager 中同时执行，耗时取两者中较长的一个而不是两者之和。
+     * 事务由应用上下文中的事务管理器开启（见 {@link SpecificationRepositoryFactoryBean}），没有事务管理器时抛出 IllegalStateException。
+     * <p>
+     * 两条查询使用各自的连接，只能读到已提交的数据，返回的实体处于游离状态。
+     * 在读写事务中调用时抛出 IllegalStateException，因为查询读不到该事务尚未提交的修改；
+     * 在只读事务中调用时两条查询也不在调用方的快照中执行。
+     * 两条查询不在同一个快照中执行，并发写入时总数与内容可能不一致。
+     * @param spec 查询条件
+     * @param pageable 分页，不分页时与 {@link #findAll(Specification, Pageable)} 相同
+     * @return 一页结果
+     */
+    Page<T> findAllInParallel(Specification<T> spec, Pageable pageable);
+
+    /**
+     * 键集分页的第一页
+     * @see #findSlice(Specification, Sort, int, Object[])
+     */
+    KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size);
+
+    /**
+     * 键集分页，从上一页的继续令牌（{@link KeysetSlice#getContinuation()}）之后继续
+     * @throws IllegalArgumentException 令牌无效
+     * @see #findSlice(Specification, Sort, int, Object[])
+     */
+    KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size, String continuation);
+
+    /**
+     * 键集分页
+     * <p>
+     * 以上一页最后一行的排序键作为条件定位，不使用 offset，翻页深度不影响查询耗时。
+     * sort 中没有主键时自动追加主键升序，保证排序唯一；排序列不能为 null。
+     * @param spec 查询条件
+     * @param sort 排序，可以由 {@link com.github.wenhao.jpa.Sorts} 生成
+     * @param size 每页行数
+     * @param keys 上一页最后一行的排序键（{@link KeysetSlice#getKeys()}），为 null 时取第一页
+     * @return 一页结果
+     */
+    KeysetSlice<T> findSlice(Specification<T> spec, Sort sort, int size, Object[] keys);
+
+    /**
+     * 按 DTO 类型投影，见 {@link Projection#of(Class)}
+     * @see #findAllProjected(Specification, Projection, Sort)
+     */
+    <R> List<R> findAllProjected(Specification<T> spec, Class<R> type, Sort sort);
+
+    /**
+     * 投影查询
+     * <p>
+     * 只 select 投影的列，每行按投影映射为 DTO 或 Object[]，不加载实体，也不进入持久化上下文。
+     * 条件中的抓取（fetch）被忽略。
+     * @param spec 查询条件
+     * @param projection 投影
+     * @param sort 排序
+     * @return 映射后的结果
+     */
+    <R> List<R> findAllProjected(Specification<T> spec, Projection<T, R> projection, Sort sort);
+
+    /**
+     * 以条件的 fetch size 提示（{@link com.github.wenhao.jpa.ExecutionHints#FETCH_SIZE}）流式读取，
+     * 没有时为 {@link SimpleSpecificationRepository#DEFAULT_FETCH_SIZE}
+     * @see #stream(Specification, Sort, int)
+     */
+    Stream<T> stream(Specification<T> spec, Sort sort);
+
+    /**
+     * 流式读取，内存占用与结果行数无关
+     * <p>
+     * 以只进游标逐行读取，JDBC 每次取 fetchSize 行；实体以只读方式加载，不保留快照；
+     * 每读取 fetchSize 行把这一批返回的实体从持久化上下文中游离（detach），不影响同一事务中的其它实体；
+     * 调用前已受管的实体被查询返回时同样会游离，未 flush 的修改随之丢失。抓取的关联只在配置了 cascade detach 时一起游离。
+     * 必须在事务中调用，并在使用后关闭返回的 Stream（如 try-with-resources）以释放游标和连接。
+     * @param spec 查询条件
+     * @param sort 排序
+     * @param fetchSize JDBC fetch size，同时是游离实体的批量
+     * @return 实体流
+     */
+    Stream<T> stream(Specification<T> spec, Sort sort, int fetchSize);
+
+    /**
+     * 批量更新，不加载实体
+     * <p>
+     * 条件经过关联（join）时先查询主键，再按每批 {@link com.github.wenhao.jpa.specification.InSpecification#CHUNK_SIZE}
+     * 个主键以 {@code id in (...)} 执行，此时需要单一主键；条件中的抓取被忽略。
+     * 语句直接作用于数据库，不经过持久化上下文，已加载的实体不会同步，也不触发实体回调和乐观锁版本。
+     * @param spec 更新条件，为 null 时更新全部
+     * @param assignments 赋值，不能为空
+     * @return 更新的行数
+     */
+    int update(Specification<T> spec, Assignments<T> assignments);
+
+    /**
+     * 批量删除，不加载实体，也不级联删除。
+     * 不命名为 delete，避免与 Spring Data 3 的 {@code long delete(Specification)} 冲突
+     * @param spec 删除条件，为 null 时删除全部
+     * @return 删除的行数
+     * @see #update(Specification, Assignments)
+     */
+    int bulkDelete(Specification<T> spec);
+
+    /**
+     * 带缓存的 {@link #findAll(Specification, Sort)}
+     * <p>
+     * 以条件的指纹（{@link com.github.wenhao.jpa.specification.Fingerprint}）和排序为键缓存匹配实体的 id，
+     * 失效方式见 {@link SpecificationCache}。没有指纹的条件（包含自定义 Specification）不缓存。
+     * 只有在只读事务中或不在事务中加载的结果才会被缓存；当前事务中尚未 flush 的修改不可见。
+     * <p>
+     * 命中时不再执行条件查询，而是按缓存的 id 以主键查询在调用方的持久化上下文中重新加载实体并保持原来的顺序，
+     * 每个调用方得到各自的实体，可以修改，也可以在事务中访问延迟关联；
+     * 实体的属性与关联总是最新的，缓存的只是哪些实体匹配条件以及它们的顺序。
+     * @param spec 查询条件
+     * @param sort 排序
+     * @return 结果
+     */
+    List<T> findAllCached(Specification<T> spec, Sort sort);
+
+    /**
+     * 带缓存的 {@link #count(Specification)}
+     * @see #findAllCached(Specification, Sort)
+     */
+    long countCached(Specification<T> spec);
+
+    /**
+     * 当前仓库使用的缓存，默认为 {@link SpecificationCache#SpecificationCache()}
+     */
+    SpecificationCache getSpecificationCache();
+
+    /**
+     * 替换当前仓库使用的缓存，可以多个仓库共用一个缓存
+     */
+    void setSpecificationCache(SpecificationCache cache);
+}
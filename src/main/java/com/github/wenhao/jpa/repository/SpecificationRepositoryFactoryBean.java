@@ -0,0 +1,91 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.repository;
+
+import org.springframework.aop.TargetSource;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 创建 {@link SimpleSpecificationRepository} 并设置应用上下文中的事务管理器
+ * <p>
+ * 并发查询（{@link SpecificationRepository#findAllInParallel}）在工作线程上开启各自的只读事务，
+ * 使用与仓库其它方法相同的事务管理器：
+ * <pre>
+ * &#64;EnableJpaRepositories(repositoryBaseClass = SimpleSpecificationRepository.class,
+ *         repositoryFactoryBeanClass = SpecificationRepositoryFactoryBean.class)
+ * </pre>
+ * 事务管理器按 {@code transactionManagerRef} 指定的名称查找，没有该名称的 bean 时按类型查找。
+ */
+public class SpecificationRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends JpaRepositoryFactoryBean<T, S, ID> {
+    private static final String DEFAULT_TRANSACTION_MANAGER = "transactionManager";
+
+    private String transactionManagerName = DEFAULT_TRANSACTION_MANAGER;
+    private BeanFactory beanFactory;
+
+    public SpecificationRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Override
+    public void setTransactionManager(String transactionManager) {
+        super.setTransactionManager(transactionManager);
+        this.transactionManagerName = transactionManager == null ? DEFAULT_TRANSACTION_MANAGER : transactionManager;
+    }
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) {
+        super.setBeanFactory(beanFactory);
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        RepositoryFactorySupport factory = super.createRepositoryFactory(entityManager);
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) -> {
+            Object target = target(proxyFactory.getTargetSource());
+            if (target instanceof SimpleSpecificationRepository) {
+                ((SimpleSpecificationRepository<?, ?>) target).setTransactionManager(transactionManager());
+            }
+        });
+        return factory;
+    }
+
+    private PlatformTransactionManager transactionManager() {
+        return beanFactory.containsBean(transactionManagerName)
+                ? beanFactory.getBean(transactionManagerName, PlatformTransactionManager.class)
+                : beanFactory.getBean(PlatformTransactionManager.class);
+    }
+
+    private static Object target(TargetSource targetSource) {
+        try {
+            return targetSource.getTarget();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to obtain repository target", e);
+        }
+    }
+}
@@ -21,22 +21,28 @@
  */
 package com.github.wenhao.jpa.specification;
 
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
 
-abstract class AbstractSpecification<T> implements Specification<T>, Serializable {
+abstract class AbstractSpecification<T> implements ContextualSpecification<T>, Serializable {
     public static final String DELIMITER = ".";
     private final String[] properties;
-
+    private transient String path;
+    private transient Fingerprint fingerprint;
 
     public AbstractSpecification(String property) {
         this(property, DELIMITER);
@@ -47,10 +53,10 @@ abstract class AbstractSpecification<T> implements Specification<T>, Serializabl
     }
 
     public AbstractSpecification(String property, String delimiter) {
-        if (property.contains(delimiter)) {
-            properties = StringUtils.split(property, delimiter);
+        if (DELIMITER.equals(delimiter)) {
+            properties = PropertyPaths.split(property);
         } else {
-            properties = new String[] {property};
+            properties = StringUtils.delimitedListToStringArray(property, delimiter);
         }
     }
 
@@ -69,17 +75,94 @@ abstract class AbstractSpecification<T> implements Specification<T>, Serializabl
     }
 
     /**
-     * 取得最后的From
+     * 完整的属性路径，以 {@link #DELIMITER} 分隔
+     */
+    public String getPath() {
+        String result = path;
+        if (result == null) {
+            result = String.join(DELIMITER, properties);
+            path = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Set<String> getPaths() {
+        return Collections.singleton(getPath());
+    }
+
+    String[] getProperties() {
+        return properties;
+    }
+
+    /**
+     * 条件值，参与结构相等与指纹；没有条件值时为空数组
+     */
+    protected Object[] getOperands() {
+        return new Object[0];
+    }
+
+    /**
+     * 首次使用时计算并缓存；条件不可变，并发计算的结果相同
+     */
+    @Override
+    public Fingerprint getFingerprint() {
+        Fingerprint result = fingerprint;
+        if (result == null) {
+            Object[] operands = getOperands();
+            result = new Fingerprint(getClass().getName() + "(" + getPath() + ":" + Fingerprint.arity(operands) + ")", operands);
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * 类型、属性路径与条件值都相同时相等
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o != null && o.getClass() == getClass() && getFingerprint().equals(((AbstractSpecification<?>) o).getFingerprint());
+    }
+
+    @Override
+    public int hashCode() {
+        return getFingerprint().hashCode();
+    }
+
+    /**
+     * 取得最后的From，同一查询内相同的关联路径会复用已有的 join。
+     * 路径对照 Metamodel 解析成缓存的属性链（见 {@link PropertyPaths#resolve}），按属性链 join；无效路径在渲染前失败
      * @param root
      * @return
      */
     public From getRoot(Root<T> root) {
-        From from = root;
-        for (int i = 0; i < properties.length - 1; i++) {
-            String joinProperty = properties[i];
-            from = from.join(joinProperty, JoinType.LEFT);
+        return JoinRegistry.join(root, PropertyPaths.resolve(root.getModel(), getPath()), properties.length - 1, JoinType.LEFT);
+    }
+
+    /**
+     * from 上名为 field 的属性。from 由 {@link #getRoot(Root)} 取得时，直接使用同一条缓存的属性链中的最后一个单值 Attribute，
+     * 不再按名称查找；集合属性或其它 From 按名称取得
+     * @param from 最后一级 From
+     * @param field 属性名
+     * @return 属性的 Path
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    protected Path path(From from, String field) {
+        From<?, ?> root = from;
+        while (root instanceof Join) {
+            root = ((Join<?, ?>) root).getParent();
+        }
+        if (root instanceof Root && field.equals(getProperty())) {
+            List<Attribute<?, ?>> attributes = PropertyPaths.resolve(((Root<?>) root).getModel(), getPath());
+            Attribute<?, ?> attribute = attributes.get(attributes.size() - 1);
+            if (attribute instanceof SingularAttribute && attribute.getDeclaringType().getJavaType().isAssignableFrom(from.getJavaType())) {
+                return from.get((SingularAttribute) attribute);
+            }
         }
-        return from;
+        return from.get(field);
     }
 
     protected Object[] toObjects(Supplier<Object>... suppliers) {
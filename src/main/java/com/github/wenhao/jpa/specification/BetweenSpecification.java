@@ -29,6 +29,7 @@ import com.github.wenhao.lambda.SerializableFunction;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
@@ -76,10 +77,27 @@ public class BetweenSpecification<T> extends AbstractSpecification<T> {
         this.upper = (Comparable<Object>) upperSupplier.get();
     }
 
+    public Comparable<Object> getLower() {
+        return lower;
+    }
+
+    public Comparable<Object> getUpper() {
+        return upper;
+    }
+
+    @Override
+    protected Object[] getOperands() {
+        return new Object[] {lower, upper};
+    }
+
     @Override
-    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
         From from = getRoot(root);
         String field = getProperty();
-        return cb.between(from.get(field), lower, upper);
+        Path path = path(from, field);
+        if (!context.isParameterized()) {
+            return cb.between(path, lower, upper);
+        }
+        return cb.between(path, context.<Comparable<Object>>value(cb, path, lower), context.<Comparable<Object>>value(cb, path, upper));
     }
 }
@@ -60,16 +60,32 @@ public abstract class CompareSpecification<T> extends AbstractSpecification<T> {
     }
 
 
+    public Comparable<Object> getCompare() {
+        return compare;
+    }
+
+    @Override
+    protected Object[] getOperands() {
+        return new Object[] {compare};
+    }
+
     @Override
-    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
         From from = getRoot(root);
         String field = getProperty();
-        return doToPredicate(from, cb, field, compare);
+        return doToPredicate(from, cb, context, field, compare);
     }
 
 
     /**
-     * 获取单个predicate
+     * 获取单个predicate，可按上下文以参数绑定比较值；默认以字面量渲染，见 {@link #doToPredicate(From, CriteriaBuilder, String, Comparable)}
+     */
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, String field, Comparable<Object> compare) {
+        return doToPredicate(root, cb, field, compare);
+    }
+
+    /**
+     * 获取单个predicate，比较值交给 Hibernate 按属性类型转换
      */
-    protected abstract Predicate doToPredicate(From root, CriteriaBuilder cb, String field,  Comparable<Object> compare);
+    protected abstract Predicate doToPredicate(From root, CriteriaBuilder cb, String field, Comparable<Object> compare);
 }
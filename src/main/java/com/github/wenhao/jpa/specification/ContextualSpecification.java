@@ -0,0 +1,89 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Set;
+
+/**
+ * 可以在指定 {@link SpecificationContext} 下渲染的 Specification
+ */
+public interface ContextualSpecification<T> extends Specification<T> {
+
+    Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context);
+
+    @Override
+    default Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        return toPredicate(root, query, cb, SpecificationContext.literal());
+    }
+
+    /**
+     * 是否静态可知恒为假（如空的 in），执行器可以不查询数据库直接返回空结果
+     */
+    default boolean isUnsatisfiable() {
+        return false;
+    }
+
+    /**
+     * 结构指纹，见 {@link Fingerprint}；无法确定结构时为 null，默认为 null
+     */
+    default Fingerprint getFingerprint() {
+        return null;
+    }
+
+    /**
+     * 条件（包括子条件和抓取）引用的属性路径，用于分析涉及的关联；无法确定时为 null，默认为 null
+     */
+    default Set<String> getPaths() {
+        return null;
+    }
+
+    /**
+     * spec 引用的属性路径，非 {@link ContextualSpecification} 返回 null
+     */
+    static Set<String> paths(Specification<?> specification) {
+        return specification instanceof ContextualSpecification ? ((ContextualSpecification<?>) specification).getPaths() : null;
+    }
+
+    /**
+     * spec 是否静态可知恒为假，非 {@link ContextualSpecification} 总是 false
+     */
+    static boolean unsatisfiable(Specification<?> specification) {
+        return specification instanceof ContextualSpecification && ((ContextualSpecification<?>) specification).isUnsatisfiable();
+    }
+
+    /**
+     * 在指定上下文中渲染的 Specification
+     */
+    static <T> Specification<T> render(Specification<T> specification, SpecificationContext context) {
+        if (specification instanceof ContextualSpecification) {
+            ContextualSpecification<T> contextual = (ContextualSpecification<T>) specification;
+            return (root, query, cb) -> contextual.toPredicate(root, query, cb, context);
+        }
+        return specification;
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 条件涉及的实体类型：Root 的类型，以及条件路径和抓取经过的关联实体类型
+ */
+public final class EntityTypes {
+
+    private EntityTypes() {
+    }
+
+    /**
+     * @param specification 条件，可以为 null
+     * @param root Root 的实体类型
+     * @return 涉及的实体类型；包含无法识别的自定义条件或路径无效时返回 null
+     */
+    public static Set<Class<?>> of(Specification<?> specification, EntityType<?> root) {
+        Set<String> paths = specification == null ? Collections.emptySet() : ContextualSpecification.paths(specification);
+        if (paths == null) {
+            return null;
+        }
+        Set<Class<?>> types = new LinkedHashSet<>();
+        types.add(root.getJavaType());
+        try {
+            for (String path : paths) {
+                collect(PropertyPaths.resolve(root, path), types);
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return types;
+    }
+
+    private static void collect(List<Attribute<?, ?>> attributes, Set<Class<?>> types) {
+        for (Attribute<?, ?> attribute : attributes) {
+            Type<?> next = attribute instanceof PluralAttribute
+                    ? ((PluralAttribute<?, ?, ?>) attribute).getElementType()
+                    : ((SingularAttribute<?, ?>) attribute).getType();
+            if (next instanceof EntityType) {
+                types.add(next.getJavaType());
+            }
+        }
+    }
+}
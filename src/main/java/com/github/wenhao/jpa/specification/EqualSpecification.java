@@ -22,10 +22,9 @@
 package com.github.wenhao.jpa.specification;
 
 import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.function.Supplier;
@@ -59,7 +58,35 @@ public class EqualSpecification<T> extends ValuesSpecification<T> {
 
     @Override
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, Object value, String field) {
-        return value == null ? cb.isNull(root.get(field)) : cb.equal(root.get(field), value);
+        return value == null ? cb.isNull(path(root, field)) : cb.equal(path(root, field), value);
+    }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object value, String field) {
+        Path path = path(root, field);
+        if (value == null) {
+            return cb.isNull(path);
+        }
+        return context.isParameterized() ? cb.equal(path, context.value(cb, path, value)) : cb.equal(path, value);
+    }
+
+    /**
+     * 多个值合并为一个 in，含 null 时再 or is null
+     */
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object[] values, String field) {
+        Path path = path(root, field);
+        List<Object> nonNullValues = nonNullValues(values);
+        Predicate in = null;
+        if (nonNullValues.size() == 1) {
+            in = doToPredicate(root, cb, context, nonNullValues.get(0), field);
+        } else if (nonNullValues.size() > 1) {
+            in = context.isParameterized() ? path.in(context.values(cb, path, nonNullValues)) : path.in(nonNullValues);
+        }
+        if (nonNullValues.size() == values.length) {
+            return in;
+        }
+        return in == null ? cb.isNull(path) : cb.or(in, cb.isNull(path));
     }
 
 
@@ -0,0 +1,117 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 半连接：以关联的 exists 子查询代替 join
+ * <p>
+ * 条件在与外层 Root 关联的子查询中渲染，子查询内相同的关联路径共用一个 join，
+ * 被包装的多个条件作用在同一个关联对象上。对集合关联（{@code @OneToMany}、{@code @ManyToMany}）过滤时，
+ * 外层查询不再因为 join 而重复返回同一个实体，分页总数也不需要 distinct。
+ * <p>
+ * 与 left join 不同，没有关联对象的实体不满足任何条件，包括 is null。
+ */
+public class ExistsSpecification<T> implements ContextualSpecification<T> {
+    private final Specification<T> specification;
+
+    public ExistsSpecification(Specification<T> specification) {
+        this.specification = specification;
+    }
+
+    public Specification<T> getSpecification() {
+        return specification;
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return ContextualSpecification.unsatisfiable(specification);
+    }
+
+    @Override
+    public Set<String> getPaths() {
+        return ContextualSpecification.paths(specification);
+    }
+
+    @Override
+    public Fingerprint getFingerprint() {
+        return Fingerprint.compose("exists", Collections.singletonList(Fingerprint.of(specification)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ExistsSpecification && Objects.equals(specification, ((ExistsSpecification<?>) o).specification);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 + Objects.hashCode(specification);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        Subquery<Integer> subquery = query.subquery(Integer.class);
+        Root<T> correlated = subquery.correlate(root);
+        Predicate predicate = ContextualSpecification.render(specification, context).toPredicate(correlated, query, cb);
+        subquery.select(cb.literal(1));
+        if (predicate != null) {
+            subquery.where(predicate);
+        }
+        return cb.exists(subquery);
+    }
+
+    /**
+     * 条件路径上第一个集合关联之前（含）的路径
+     * @param specification 条件，只识别内置条件
+     * @param root 条件所在的 Root
+     * @return 路径不经过集合关联时返回 null
+     */
+    public static String pluralPath(Specification<?> specification, Root<?> root) {
+        if (!(specification instanceof AbstractSpecification)) {
+            return null;
+        }
+        AbstractSpecification<?> abstractSpecification = (AbstractSpecification<?>) specification;
+        List<Attribute<?, ?>> attributes = PropertyPaths.resolve(root.getModel(), abstractSpecification.getPath());
+        for (int i = 0; i < attributes.size() - 1; i++) {
+            if (attributes.get(i).isCollection()) {
+                return String.join(AbstractSpecification.DELIMITER, Arrays.copyOf(abstractSpecification.getProperties(), i + 1));
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.FetchParent;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * 抓取关联（fetch join），不产生条件
+ * <p>
+ * 同一路径已有的 fetch 会被复用；单值关联的 fetch 同时被之后渲染的条件复用作 join（见 {@link JoinRegistry}）。
+ * 不抓取的上下文（{@link SpecificationContext#withoutFetch()}，仓库以它渲染投影等查询）中不抓取；
+ * fetch join 要求根实体出现在结果中，结果类型不是根实体的查询同样不抓取。
+ * 抓取集合关联时查询设置为 distinct；与分页同时使用时 Hibernate 在内存中分页。
+ * 计数查询（{@link SpecificationContext#forCount()}）不抓取，但路径经过集合时同样设置 distinct，计数与内容一致。
+ */
+public class FetchSpecification<T> extends AbstractSpecification<T> {
+
+    public FetchSpecification(String property) {
+        super(property);
+    }
+
+    public FetchSpecification(Field field) {
+        super(field);
+    }
+
+    public FetchSpecification(List<Field> fields) {
+        super(fields);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        if (context.isCounting()) {
+            if (PropertyPaths.resolve(root.getModel(), getPath()).stream().anyMatch(Attribute::isCollection)) {
+                query.distinct(true);
+            }
+            return null;
+        }
+        if (!context.isFetching() || !query.getResultType().isAssignableFrom(root.getJavaType())) {
+            return null;
+        }
+        FetchParent<?, ?> current = root;
+        for (String property : getProperties()) {
+            Fetch<?, ?> fetch = fetch(current, property);
+            if (fetch.getAttribute().isCollection()) {
+                query.distinct(true);
+            }
+            current = fetch;
+        }
+        return null;
+    }
+
+    private static Fetch<?, ?> fetch(FetchParent<?, ?> parent, String attribute) {
+        for (Fetch<?, ?> fetch : parent.getFetches()) {
+            if (fetch.getJoinType() == JoinType.LEFT && fetch.getAttribute().getName().equals(attribute)) {
+                return fetch;
+            }
+        }
+        return parent.fetch(attribute, JoinType.LEFT);
+    }
+}
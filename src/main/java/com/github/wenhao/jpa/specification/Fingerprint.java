@@ -0,0 +1,125 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 条件的结构指纹
+ * <p>
+ * 形状（{@link #getShape()}）由条件类型、组合方式、属性路径和各条件值的个数组成，不含值本身，
+ * 形状相同的条件渲染出相同的 SQL，可以用来按查询形状分组统计。
+ * 指纹本身（{@link #equals(Object)}）同时比较形状和值，值相同的条件查询结果相同，可以作为缓存的键。
+ * <p>
+ * 值按 {@code equals} 比较，指纹只在同一个 JVM 内稳定；创建后不再变化，哈希值在构造时计算。
+ */
+public final class Fingerprint {
+    private final String shape;
+    private final Object[] values;
+    private final int hash;
+
+    public Fingerprint(String shape, Object... values) {
+        this.shape = shape;
+        this.values = values.clone();
+        this.hash = 31 * shape.hashCode() + Arrays.deepHashCode(this.values);
+    }
+
+    /**
+     * spec 的指纹，无法识别的自定义条件（或包含它的组合）返回 null
+     */
+    public static Fingerprint of(Specification<?> specification) {
+        return specification instanceof ContextualSpecification ? ((ContextualSpecification<?>) specification).getFingerprint() : null;
+    }
+
+    /**
+     * 组合多个指纹：形状为 {@code prefix{a,b,...}}，值依次拼接后再追加 extraValues
+     * @return 任一部分为 null 时返回 null
+     */
+    public static Fingerprint compose(String prefix, List<Fingerprint> parts, Object... extraValues) {
+        StringBuilder shape = new StringBuilder(prefix).append('{');
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < parts.size(); i++) {
+            Fingerprint part = parts.get(i);
+            if (part == null) {
+                return null;
+            }
+            shape.append(i == 0 ? "" : ",").append(part.shape);
+            Collections.addAll(values, part.values);
+        }
+        Collections.addAll(values, extraValues);
+        return new Fingerprint(shape.append('}').toString(), values.toArray());
+    }
+
+    /**
+     * 值的个数描述：非 null 值的个数，含 null 时追加 "+null"
+     */
+    static String arity(Object[] values) {
+        int nonNull = 0;
+        for (Object value : values) {
+            if (value != null) {
+                nonNull++;
+            }
+        }
+        return nonNull == values.length ? String.valueOf(nonNull) : nonNull + "+null";
+    }
+
+    public String getShape() {
+        return shape;
+    }
+
+    /**
+     * 按渲染顺序展开的全部条件值
+     */
+    public List<Object> getValues() {
+        return Collections.unmodifiableList(Arrays.asList(values));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Fingerprint)) {
+            return false;
+        }
+        Fingerprint that = (Fingerprint) o;
+        return hash == that.hash && shape.equals(that.shape) && Arrays.deepEquals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * 只输出形状，条件值可能包含敏感数据
+     */
+    @Override
+    public String toString() {
+        return shape;
+    }
+}
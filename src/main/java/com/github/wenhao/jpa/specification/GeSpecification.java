@@ -24,6 +24,7 @@ package com.github.wenhao.jpa.specification;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
@@ -58,7 +59,16 @@ public class GeSpecification<T> extends CompareSpecification<T> {
 
     @Override
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, String field, Comparable<Object> compare) {
-        return cb.greaterThanOrEqualTo(root.get(field), compare);
+        return cb.greaterThanOrEqualTo(path(root, field), compare);
+    }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, String field, Comparable<Object> compare) {
+        if (!context.isParameterized()) {
+            return doToPredicate(root, cb, field, compare);
+        }
+        Path path = path(root, field);
+        return cb.greaterThanOrEqualTo(path, context.<Comparable<Object>>value(cb, path, compare));
     }
 
 
@@ -0,0 +1,77 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * in 条件的参数补齐
+ * <p>
+ * 把 in 的值个数补齐到 2 的幂（重复最后一个值，不影响结果），37 个值和 38 个值渲染出同一条 SQL，
+ * 数据库语句缓存和 Hibernate 查询计划缓存中 in 的形状从 N 种收敛到 log2(N) 种。
+ * <p>
+ * 补齐在 build()/compile() 时进行，与 in 条件和开关的先后顺序无关。compile() 的参数模式下所有值都以参数绑定；
+ * build() 的字面量模式下 Hibernate 默认（{@code hibernate.criteria.literal_handling_mode=AUTO}）只把数值内联进 SQL，
+ * 字符串、日期、枚举等仍以参数绑定：数值的 in 每组值本来就是不同的 SQL，补齐没有效果，其它类型的 in 与参数模式一样按个数共用 SQL。
+ * <p>
+ * 渲染出的 in 形状（补齐后的值个数）通过 {@link com.github.wenhao.jpa.listener.SpecificationListener#onInList(int)} 上报，
+ * 种数见 {@link com.github.wenhao.jpa.listener.SpecificationMetrics#getInListShapes()}。
+ */
+public final class InClausePadding {
+    private InClausePadding() {
+    }
+
+    /**
+     * 补齐到不小于 size 的 2 的幂
+     * @param values in 的值
+     * @return 补齐后的值，values 为空时原样返回
+     */
+    public static Collection<?> pad(Collection<?> values) {
+        return pad(values, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 补齐到不小于 size 的 2 的幂，最多补齐到 limit 个
+     * @param values in 的值
+     * @param limit 补齐后的最大个数，values 已超过时原样返回
+     * @return 补齐后的值，values 为空或不需要补齐时原样返回
+     */
+    public static Collection<?> pad(Collection<?> values, int limit) {
+        if (values == null || values.isEmpty() || values.size() >= limit) {
+            return values;
+        }
+        int size = values.size();
+        int padded = Integer.highestOneBit(size) == size ? size : (int) Math.min(Integer.highestOneBit(size) * 2L, limit);
+        if (padded == size) {
+            return values;
+        }
+        List<Object> list = new ArrayList<>(padded);
+        list.addAll(values);
+        Object last = list.get(size - 1);
+        while (list.size() < padded) {
+            list.add(last);
+        }
+        return list;
+    }
+}
@@ -21,53 +21,130 @@
  */
 package com.github.wenhao.jpa.specification;
 
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Supplier;
 
 public class InSpecification<T> extends AbstractSpecification<T> {
+    /**
+     * 拆分时单个 in 列表的最大值个数，见 {@code inClauseSplitting} 与 {@code findAllInChunks}
+     */
+    public static final int CHUNK_SIZE = 1000;
+
     private final transient Collection<?> values;
 
     public InSpecification(String property, Collection<?> values) {
         super(property);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public InSpecification(Field field, Collection<?> values) {
         super(field);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public InSpecification(List<Field> fields, Collection<?> values) {
         super(fields);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public InSpecification(String property, Supplier<Collection<?>> supplier) {
         super(property);
-        this.values = supplier.get();
+        this.values = copy(supplier.get());
     }
 
     public InSpecification(Field field, Supplier<Collection<?>> supplier) {
         super(field);
-        this.values = supplier.get();
+        this.values = copy(supplier.get());
     }
 
     public InSpecification(List<Field> fields, Supplier<Collection<?>> supplier) {
         super(fields);
-        this.values = supplier.get();
+        this.values = copy(supplier.get());
+    }
+
+    /**
+     * @return 构造时复制的值，不可修改
+     */
+    public Collection<?> getValues() {
+        return values;
+    }
+
+    /**
+     * 复制调用方的集合：指纹与结果缓存依赖值不变，之后修改原集合不影响条件
+     */
+    private static Collection<?> copy(Collection<?> values) {
+        return values == null ? null : Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    @Override
+    protected Object[] getOperands() {
+        return values == null ? new Object[] {null} : values.toArray();
     }
 
+    /**
+     * 空的 in 恒为假
+     */
     @Override
-    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    public boolean isUnsatisfiable() {
+        return values != null && values.isEmpty();
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
         From from = getRoot(root);
-        String field = getProperty();
-        return from.get(field).in(values);
+        Path path = path(from, getProperty());
+        Collection<?> values = context.inValues(this, this.values);
+        if (values != null && values.isEmpty()) {
+            return empty(cb);
+        }
+        if (values != null && SpecificationListeners.isEnabled()) {
+            SpecificationListeners.inList(values.size());
+        }
+        return toPredicate(path, cb, context, values);
+    }
+
+    /**
+     * 单个 in 列表的 predicate
+     */
+    protected Predicate toPredicate(Path path, CriteriaBuilder cb, SpecificationContext context, Collection<?> values) {
+        return context.isParameterized() ? path.in(context.values(cb, path, values)) : path.in(values);
+    }
+
+    /**
+     * 值为空时的 predicate，in 恒为假
+     */
+    protected Predicate empty(CriteriaBuilder cb) {
+        return cb.disjunction();
+    }
+
+    /**
+     * 按 size 拆分 values
+     */
+    public static List<List<Object>> partition(Collection<?> values, int size) {
+        List<List<Object>> chunks = new ArrayList<>((values.size() + size - 1) / size);
+        List<Object> chunk = new ArrayList<>(size);
+        for (Object value : values) {
+            chunk.add(value);
+            if (chunk.size() == size) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(size);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
     }
 }
@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Path;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.CollectionAttribute;
+import javax.persistence.metamodel.ListAttribute;
+import javax.persistence.metamodel.MapAttribute;
+import javax.persistence.metamodel.SetAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.util.List;
+
+/**
+ * 关联注册表
+ * <p>
+ * 以 From 自身持有的 joins 作为注册表，同一个查询内相同的单值关联路径（{@code @ManyToOne}、{@code @OneToOne}、嵌入对象）只 join 一次。
+ * Spring Data 解析 Sort 中的级联属性时同样复用 From 上已有的 join，所以排序与条件共享同一个关联。
+ * 已有的单值关联 fetch join（见 {@link FetchSpecification}）同样会被复用。
+ * <p>
+ * 集合关联（{@code @OneToMany}、{@code @ManyToMany}）每个条件各自 join，不复用：
+ * {@code eq("phones.brand", x).eq("phones.number", y)} 表示有一个手机品牌为 x、并且有一个手机号码为 y，
+ * 两者可以是不同的手机。需要作用在同一个关联对象上时使用半连接（{@code semiJoin(true)}），
+ * 只有在半连接的 exists 子查询中（起始 From 由关联子查询得到）才复用集合关联。
+ * 集合关联的 fetch 始终不复用，否则条件会过滤抓取进持久化上下文的集合，集合只加载到部分元素。
+ */
+public final class JoinRegistry {
+
+    private JoinRegistry() {
+    }
+
+    /**
+     * 按路径逐级取得（或创建）关联，返回最后一级的 From
+     * @param from 起始 From，一般是 Root
+     * @param path 关联路径
+     * @param length 使用 path 的前 length 段
+     * @param joinType 关联方式
+     * @return 最后一级关联
+     */
+    public static From<?, ?> join(From<?, ?> from, String[] path, int length, JoinType joinType) {
+        boolean correlated = isCorrelated(from);
+        From<?, ?> current = from;
+        for (int i = 0; i < length; i++) {
+            current = join(current, path[i], joinType, correlated);
+        }
+        return current;
+    }
+
+    /**
+     * 取得（或创建）单级关联
+     * @param from 当前 From
+     * @param attribute 关联属性名
+     * @param joinType 关联方式
+     * @return 已存在的关联，不存在时新建
+     */
+    public static Join<?, ?> join(From<?, ?> from, String attribute, JoinType joinType) {
+        return join(from, attribute, joinType, isCorrelated(from));
+    }
+
+    private static Join<?, ?> join(From<?, ?> from, String attribute, JoinType joinType, boolean correlated) {
+        Join<?, ?> existing = existing(from, attribute, joinType, correlated);
+        return existing != null ? existing : from.join(attribute, joinType);
+    }
+
+    /**
+     * 按已解析的属性链逐级取得（或创建）关联，见 {@link PropertyPaths#resolve}
+     * @param from 起始 From，属性链的起始类型
+     * @param attributes 属性链
+     * @param length 使用属性链的前 length 个属性
+     * @param joinType 关联方式
+     * @return 最后一级关联
+     */
+    public static From<?, ?> join(From<?, ?> from, List<Attribute<?, ?>> attributes, int length, JoinType joinType) {
+        boolean correlated = isCorrelated(from);
+        From<?, ?> current = from;
+        for (int i = 0; i < length; i++) {
+            current = join(current, attributes.get(i), joinType, correlated);
+        }
+        return current;
+    }
+
+    /**
+     * 取得（或创建）单级关联，新建时直接以属性 join，不再按名称查找属性
+     */
+    public static Join<?, ?> join(From<?, ?> from, Attribute<?, ?> attribute, JoinType joinType) {
+        return join(from, attribute, joinType, isCorrelated(from));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Join<?, ?> join(From<?, ?> from, Attribute<?, ?> attribute, JoinType joinType, boolean correlated) {
+        Join<?, ?> existing = existing(from, attribute.getName(), joinType, correlated);
+        if (existing != null) {
+            return existing;
+        }
+        From raw = from;
+        if (attribute instanceof SingularAttribute) {
+            return raw.join((SingularAttribute) attribute, joinType);
+        }
+        if (attribute instanceof ListAttribute) {
+            return raw.join((ListAttribute) attribute, joinType);
+        }
+        if (attribute instanceof SetAttribute) {
+            return raw.join((SetAttribute) attribute, joinType);
+        }
+        if (attribute instanceof MapAttribute) {
+            return raw.join((MapAttribute) attribute, joinType);
+        }
+        return raw.join((CollectionAttribute) attribute, joinType);
+    }
+
+    /**
+     * 已有的同名关联；集合关联只在关联子查询中复用
+     */
+    private static Join<?, ?> existing(From<?, ?> from, String attribute, JoinType joinType, boolean correlated) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getJoinType() == joinType && join.getAttribute().getName().equals(attribute)
+                    && (correlated || !join.getAttribute().isCollection())) {
+                return join;
+            }
+        }
+        for (Fetch<?, ?> fetch : from.getFetches()) {
+            if (fetch instanceof Join && !fetch.getAttribute().isCollection()
+                    && fetch.getJoinType() == joinType && fetch.getAttribute().getName().equals(attribute)) {
+                return (Join<?, ?>) fetch;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * From 是否属于关联子查询，即从它向上的 join 链起始于 {@code subquery.correlate(root)} 得到的 Root
+     */
+    private static boolean isCorrelated(From<?, ?> from) {
+        From<?, ?> current = from;
+        while (current instanceof Join) {
+            current = ((Join<?, ?>) current).getParent();
+        }
+        return current.isCorrelated();
+    }
+
+    /**
+     * 属性路径对应的 Path，级联属性以 left join 复用同一查询内已有的关联
+     * @param from 起始 From，一般是 Root
+     * @param property 属性路径，以 {@link AbstractSpecification#DELIMITER} 分隔
+     * @return 最后一级属性
+     */
+    public static Path<?> path(From<?, ?> from, String property) {
+        String[] properties = PropertyPaths.split(property);
+        return join(from, properties, properties.length - 1, JoinType.LEFT).get(properties[properties.length - 1]);
+    }
+}
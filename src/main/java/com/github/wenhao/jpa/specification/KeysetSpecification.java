@@ -0,0 +1,158 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 键集（seek）分页条件：从上一页最后一行的排序键之后继续
+ * <p>
+ * 排序 (a asc, b desc) 与键 (x, y) 渲染为 {@code a >= x and (a > x or (a = x and b < y))}，
+ * 前面冗余的 {@code a >= x} 让数据库可以直接在索引上定位起点，翻页深度不影响查询耗时。
+ * 排序需要以唯一的列结尾，排序列不能为 null。忽略大小写的字符串排序按 {@code lower(列)} 比较，与 ORDER BY 一致；
+ * Criteria 查询不支持 nulls first/last，指定了 null 排序的 sort 会被拒绝。
+ */
+public class KeysetSpecification<T> implements ContextualSpecification<T> {
+    private final Specification<T> specification;
+    private final List<Sort.Order> orders;
+    private final Object[] keys;
+
+    /**
+     * @param specification 查询条件，可以为 null
+     * @param sort 排序，需要以唯一的列结尾
+     * @param keys 上一页最后一行的排序键，与 sort 一一对应
+     */
+    public KeysetSpecification(Specification<T> specification, Sort sort, Object[] keys) {
+        checkSort(sort);
+        this.specification = specification;
+        this.orders = sort.stream().collect(Collectors.toList());
+        if (keys.length != orders.size()) {
+            throw new IllegalArgumentException("Expected " + orders.size() + " keyset values for " + sort + " but got " + keys.length);
+        }
+        for (Object key : keys) {
+            if (key == null) {
+                throw new IllegalArgumentException("Keyset values must not be null");
+            }
+        }
+        this.keys = keys.clone();
+    }
+
+    /**
+     * @throws IllegalArgumentException sort 指定了 nulls first/last，Criteria 查询无法按其排序
+     */
+    public static void checkSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (order.getNullHandling() != Sort.NullHandling.NATIVE) {
+                throw new IllegalArgumentException("Keyset pagination does not support null handling: " + order);
+            }
+        }
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return ContextualSpecification.unsatisfiable(specification);
+    }
+
+    @Override
+    public Set<String> getPaths() {
+        Set<String> paths = specification == null ? new LinkedHashSet<>() : ContextualSpecification.paths(specification);
+        if (paths == null) {
+            return null;
+        }
+        paths = new LinkedHashSet<>(paths);
+        for (Sort.Order order : orders) {
+            paths.add(order.getProperty());
+        }
+        return paths;
+    }
+
+    @Override
+    public Fingerprint getFingerprint() {
+        List<Fingerprint> parts = specification == null ? Collections.emptyList() : Collections.singletonList(Fingerprint.of(specification));
+        return Fingerprint.compose("keyset" + orders, parts, keys);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof KeysetSpecification)) {
+            return false;
+        }
+        KeysetSpecification<?> that = (KeysetSpecification<?>) o;
+        return Objects.equals(specification, that.specification) && orders.equals(that.orders) && Arrays.equals(keys, that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Objects.hashCode(specification) + orders.hashCode()) + Arrays.hashCode(keys);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        Predicate seek = null;
+        Predicate start = null;
+        for (int i = orders.size() - 1; i >= 0; i--) {
+            Sort.Order order = orders.get(i);
+            Expression<Comparable<Object>> path = (Expression<Comparable<Object>>) JoinRegistry.path(root, order.getProperty());
+            Expression<Comparable<Object>> key = context.value(cb, path, keys[i]);
+            if (order.isIgnoreCase() && String.class.equals(path.getJavaType())) {
+                path = (Expression<Comparable<Object>>) (Expression<?>) cb.lower((Expression<String>) (Expression<?>) path);
+                key = (Expression<Comparable<Object>>) (Expression<?>) cb.lower((Expression<String>) (Expression<?>) key);
+            }
+            Predicate beyond = order.isAscending() ? cb.greaterThan(path, key) : cb.lessThan(path, key);
+            seek = seek == null ? beyond : cb.or(beyond, cb.and(cb.equal(path, key), seek));
+            if (i == 0) {
+                start = order.isAscending() ? cb.greaterThanOrEqualTo(path, key) : cb.lessThanOrEqualTo(path, key);
+            }
+        }
+        List<Predicate> predicates = new ArrayList<>(3);
+        if (specification != null) {
+            Predicate predicate = ContextualSpecification.render(specification, context).toPredicate(root, query, cb);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (orders.size() > 1) {
+            predicates.add(start);
+        }
+        predicates.add(seek);
+        return cb.and(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -23,6 +23,7 @@ package com.github.wenhao.jpa.specification;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import java.lang.reflect.Field;
 import java.util.List;
@@ -57,6 +58,15 @@ public class LeSpecification<T> extends CompareSpecification<T> {
 
     @Override
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, String field, Comparable<Object> compare) {
-        return cb.lessThanOrEqualTo(root.get(field), compare);
+        return cb.lessThanOrEqualTo(path(root, field), compare);
+    }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, String field, Comparable<Object> compare) {
+        if (!context.isParameterized()) {
+            return doToPredicate(root, cb, field, compare);
+        }
+        Path path = path(root, field);
+        return cb.lessThanOrEqualTo(path, context.<Comparable<Object>>value(cb, path, compare));
     }
 }
@@ -24,8 +24,11 @@ package com.github.wenhao.jpa.specification;
 import lombok.NonNull;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.function.Supplier;
@@ -56,8 +59,25 @@ public class LikeSpecification<T> extends ValuesSpecification<T> {
         super(fields, suppliers);
     }
 
+    /**
+     * 值数组为 null 时为 is null；数组中的 null 值与其它值一样交给 like
+     */
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
+        if (getValues() == null) {
+            return cb.isNull(path(getRoot(root), getProperty()));
+        }
+        return super.toPredicate(root, query, cb, context);
+    }
+
     @Override
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, Object value, String field) {
-        return cb.like(root.get(field), (String) value);
+        return cb.like(path(root, field), (String) value);
+    }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object value, String field) {
+        Path path = path(root, field);
+        return context.isParameterized() && value != null ? cb.like(path, context.<String>value(cb, path, value)) : cb.like(path, (String) value);
     }
 }
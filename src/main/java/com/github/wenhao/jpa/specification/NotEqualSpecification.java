@@ -22,10 +22,9 @@
 package com.github.wenhao.jpa.specification;
 
 import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.function.Supplier;
@@ -59,7 +58,32 @@ public class NotEqualSpecification<T> extends ValuesSpecification<T> {
 
     @Override
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, Object value, String field) {
-        return value == null ? cb.isNotNull(root.get(field)) : cb.notEqual(root.get(field), value);
+        return value == null ? cb.isNotNull(path(root, field)) : cb.notEqual(path(root, field), value);
+    }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object value, String field) {
+        Path path = path(root, field);
+        if (value == null) {
+            return cb.isNotNull(path);
+        }
+        return context.isParameterized() ? cb.notEqual(path, context.value(cb, path, value)) : cb.notEqual(path, value);
+    }
+
+    /**
+     * 多个值合并为一个 not in。not in 本身不匹配 null，含 null 时只有全为 null 才需要 is not null
+     */
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object[] values, String field) {
+        Path path = path(root, field);
+        List<Object> nonNullValues = nonNullValues(values);
+        if (nonNullValues.isEmpty()) {
+            return cb.isNotNull(path);
+        }
+        if (nonNullValues.size() == 1) {
+            return doToPredicate(root, cb, context, nonNullValues.get(0), field);
+        }
+        return (context.isParameterized() ? path.in(context.values(cb, path, nonNullValues)) : path.in(nonNullValues)).not();
     }
 }
 
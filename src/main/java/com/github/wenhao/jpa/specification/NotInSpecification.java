@@ -22,10 +22,8 @@
 package com.github.wenhao.jpa.specification;
 
 import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
 import java.lang.reflect.Field;
 import java.util.Collection;
 import java.util.List;
@@ -58,7 +56,20 @@ public class NotInSpecification<T> extends InSpecification<T> {
     }
 
     @Override
-    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
-        return super.toPredicate(root, query, cb).not();
+    protected Predicate toPredicate(Path path, CriteriaBuilder cb, SpecificationContext context, Collection<?> values) {
+        return super.toPredicate(path, cb, context, values).not();
+    }
+
+    @Override
+    public boolean isUnsatisfiable() {
+        return false;
+    }
+
+    /**
+     * 空的 not in 恒为真
+     */
+    @Override
+    protected Predicate empty(CriteriaBuilder cb) {
+        return cb.conjunction();
     }
 }
@@ -63,4 +63,9 @@ public class NotLikeSpecification<T> extends LikeSpecification<T> {
     protected Predicate doToPredicate(From root, CriteriaBuilder cb, Object value, String field) {
         return super.doToPredicate(root, cb, value, field).not();
     }
+
+    @Override
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object value, String field) {
+        return super.doToPredicate(root, cb, context, value, field).not();
+    }
 }
@@ -0,0 +1,192 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.util.StringUtils;
+
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import javax.persistence.metamodel.PluralAttribute;
+import javax.persistence.metamodel.SingularAttribute;
+import javax.persistence.metamodel.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 属性路径解析，所有条件共用：
+ * <ul>
+ *     <li>路径按 {@link AbstractSpecification#DELIMITER} 拆分后的缓存，相同路径共用一个数组，调用方不得修改</li>
+ *     <li>路径对照 JPA Metamodel 解析成的属性链，按类型缓存，不可变；无效路径抛出 IllegalArgumentException</li>
+ * </ul>
+ * 路径可能来自请求参数，每个缓存超过 {@link #MAXIMUM_SIZE} 后不再缓存，只解析。
+ * <p>
+ * 属性链与登记的类型以 {@link ClassValue} 保存在实体类上，随类加载器一起回收；
+ * 每个实体类只保留最近登记（或解析）的 Metamodel 中的类型，上下文重启后旧的 Metamodel 不再被引用。
+ * 同一实体类同时属于多个 EntityManagerFactory 时，属性链缓存会随交替使用而重建。
+ */
+public final class PropertyPaths {
+    static final int MAXIMUM_SIZE = 4096;
+    private static final ConcurrentMap<String, String[]> PATHS = new ConcurrentHashMap<>();
+    private static final ClassValue<State> STATES = new ClassValue<State>() {
+        @Override
+        protected State computeValue(Class<?> type) {
+            return new State();
+        }
+    };
+
+    private PropertyPaths() {
+    }
+
+    public static String[] split(String path) {
+        String[] properties = PATHS.get(path);
+        if (properties == null) {
+            properties = StringUtils.delimitedListToStringArray(path, AbstractSpecification.DELIMITER);
+            if (PATHS.size() < MAXIMUM_SIZE) {
+                String[] previous = PATHS.putIfAbsent(path, properties);
+                if (previous != null) {
+                    properties = previous;
+                }
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * 预先拆分并缓存
+     * @return 是否新加入缓存
+     */
+    public static boolean prime(String path) {
+        if (PATHS.containsKey(path) || PATHS.size() >= MAXIMUM_SIZE) {
+            return false;
+        }
+        return PATHS.putIfAbsent(path, StringUtils.delimitedListToStringArray(path, AbstractSpecification.DELIMITER)) == null;
+    }
+
+    public static int size() {
+        return PATHS.size();
+    }
+
+    /**
+     * 登记 Metamodel，之后可按实体类校验路径，见 {@link #validate(Class, Collection)}；后登记的覆盖先登记的。
+     * 由 SimpleSpecificationRepository 与 SpecificationWarmUp 在启动时登记
+     */
+    public static void register(Metamodel metamodel) {
+        for (ManagedType<?> type : metamodel.getManagedTypes()) {
+            STATES.get(type.getJavaType()).registered = type;
+        }
+    }
+
+    /**
+     * 按属性链解析路径，首次解析后缓存
+     * @param root 起始类型，一般是 Root 的实体类型
+     * @param path 属性路径
+     * @return 不可变的属性链，与路径各段一一对应
+     * @throws IllegalArgumentException 属性不存在，或基本类型属性后还有下一段
+     */
+    public static List<Attribute<?, ?>> resolve(ManagedType<?> root, String path) {
+        State state = STATES.get(root.getJavaType());
+        Chains chains = state.chains;
+        if (chains == null || chains.type != root) {
+            chains = new Chains(root);
+            state.chains = chains;
+        }
+        ConcurrentMap<String, List<Attribute<?, ?>>> attributes = chains.attributes;
+        List<Attribute<?, ?>> chain = attributes.get(path);
+        if (chain == null) {
+            chain = resolve0(root, path);
+            if (attributes.size() < MAXIMUM_SIZE) {
+                attributes.putIfAbsent(path, chain);
+            }
+        }
+        return chain;
+    }
+
+    /**
+     * 以登记的 Metamodel 校验实体类上的路径；没有登记或类型不受管理时不校验
+     * @throws IllegalArgumentException 存在无效路径
+     */
+    public static void validate(Class<?> type, Collection<String> paths) {
+        ManagedType<?> root = managedType(type);
+        if (root != null && paths != null) {
+            for (String path : paths) {
+                resolve(root, path);
+            }
+        }
+    }
+
+    private static ManagedType<?> managedType(Class<?> type) {
+        return STATES.get(type).registered;
+    }
+
+    private static List<Attribute<?, ?>> resolve0(ManagedType<?> root, String path) {
+        String[] properties = split(path);
+        List<Attribute<?, ?>> chain = new ArrayList<>(properties.length);
+        ManagedType<?> type = root;
+        for (String property : properties) {
+            if (type == null) {
+                throw new IllegalArgumentException(String.format("Unable to resolve path [%s] on [%s]: [%s] is not an association or embeddable",
+                    path, root.getJavaType().getName(), chain.get(chain.size() - 1).getName()));
+            }
+            Attribute<?, ?> attribute;
+            try {
+                attribute = type.getAttribute(property);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Unable to resolve path [%s] on [%s]: no attribute [%s] on [%s]",
+                    path, root.getJavaType().getName(), property, type.getJavaType().getName()), e);
+            }
+            chain.add(attribute);
+            Type<?> next = attribute instanceof PluralAttribute
+                ? ((PluralAttribute<?, ?, ?>) attribute).getElementType()
+                : ((SingularAttribute<?, ?>) attribute).getType();
+            type = next instanceof ManagedType ? (ManagedType<?>) next : null;
+        }
+        return Collections.unmodifiableList(chain);
+    }
+
+    /**
+     * 实体类上保存的状态
+     */
+    private static final class State {
+        /**
+         * 最近登记的类型
+         */
+        private volatile ManagedType<?> registered;
+        /**
+         * 最近解析使用的类型及其属性链
+         */
+        private volatile Chains chains;
+    }
+
+    private static final class Chains {
+        private final ManagedType<?> type;
+        private final ConcurrentMap<String, List<Attribute<?, ?>>> attributes = new ConcurrentHashMap<>();
+
+        private Chains(ManagedType<?> type) {
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.specification;
+
+import org.springframework.util.ClassUtils;
+
+import javax.persistence.Query;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.ParameterExpression;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 一次 toPredicate 渲染过程的上下文
+ * <p>
+ * 字面量模式下条件把比较值原样交给 CriteriaBuilder，由 Hibernate 按属性类型转换并内联；参数模式下比较值渲染成 {@link ParameterExpression} 占位，
+ * 查询创建之后再由 {@link #bind(Query)} 绑定。参数模式下相同结构的条件生成相同的 JPQL，
+ * Hibernate 查询计划缓存对每种条件结构只保留一份。
+ * <p>
+ * 参数模式的上下文记录了本次渲染的绑定值，只能用于一次查询。
+ */
+public class SpecificationContext {
+    private static final SpecificationContext LITERAL = new SpecificationContext(false, null, null, true, false);
+
+    private final boolean parameterized;
+    private final List<ParameterExpression<Object>> parameters;
+    private final List<Object> values;
+    private final InSpecification<?> replaced;
+    private final Collection<?> replacement;
+    private final boolean fetching;
+    private final boolean counting;
+
+    private SpecificationContext(boolean parameterized, InSpecification<?> replaced, Collection<?> replacement, boolean fetching, boolean counting) {
+        this(parameterized, parameterized ? new ArrayList<>() : null, parameterized ? new ArrayList<>() : null, replaced, replacement, fetching, counting);
+    }
+
+    private SpecificationContext(boolean parameterized, List<ParameterExpression<Object>> parameters, List<Object> values,
+                                 InSpecification<?> replaced, Collection<?> replacement, boolean fetching, boolean counting) {
+        this.parameterized = parameterized;
+        this.parameters = parameters;
+        this.values = values;
+        this.replaced = replaced;
+        this.replacement = replacement;
+        this.fetching = fetching;
+        this.counting = counting;
+    }
+
+    /**
+     * 字面量模式，无状态可共享
+     */
+    public static SpecificationContext literal() {
+        return LITERAL;
+    }
+
+    /**
+     * 参数模式，每次查询新建
+     */
+    public static SpecificationContext parameterized() {
+        return new SpecificationContext(true, null, null, true, false);
+    }
+
+    /**
+     * 渲染时以 values 代替指定 in 条件的值，用于分批执行大 in 列表
+     * @param specification 被替换的 in 条件
+     * @param values 本批的值
+     * @return 新的上下文，模式与当前一致
+     */
+    public SpecificationContext replace(InSpecification<?> specification, Collection<?> values) {
+        return new SpecificationContext(parameterized, specification, values, fetching, counting);
+    }
+
+    /**
+     * 不抓取关联的上下文，与当前上下文共用绑定值；用于投影等不以根实体为结果的查询，
+     * 见 {@link FetchSpecification}
+     */
+    public SpecificationContext withoutFetch() {
+        return fetching ? new SpecificationContext(parameterized, parameters, values, replaced, replacement, false, counting) : this;
+    }
+
+    /**
+     * 计数查询的上下文，与当前上下文共用绑定值；不抓取关联，但抓取集合时与内容查询一样按根实体去重计数
+     */
+    public SpecificationContext forCount() {
+        return new SpecificationContext(parameterized, parameters, values, replaced, replacement, false, true);
+    }
+
+    public boolean isFetching() {
+        return fetching;
+    }
+
+    public boolean isCounting() {
+        return counting;
+    }
+
+    /**
+     * in 条件本次渲染使用的值
+     */
+    public Collection<?> inValues(InSpecification<?> specification, Collection<?> values) {
+        return specification == replaced ? replacement : values;
+    }
+
+    public boolean isParameterized() {
+        return parameterized;
+    }
+
+    /**
+     * 比较值对应的表达式。参数以值的运行时类型声明，字面量模式下为 {@code cb.literal(value)}，都不做类型转换，
+     * 只用于值的类型与属性类型一致的场合；与属性比较时使用 {@link #value(CriteriaBuilder, Expression, Object)}
+     * @param cb CriteriaBuilder
+     * @param value 比较值，不能为 null
+     * @return 字面量或参数占位
+     */
+    @SuppressWarnings("unchecked")
+    public <Y> Expression<Y> value(CriteriaBuilder cb, Y value) {
+        if (!parameterized) {
+            return cb.literal(value);
+        }
+        ParameterExpression<Object> parameter = cb.parameter((Class<Object>) typeOf(value));
+        parameters.add(parameter);
+        values.add(value);
+        return (Expression<Y>) parameter;
+    }
+
+    /**
+     * 与属性比较的值对应的表达式。参数以属性的类型声明，数值先按属性类型转换（如 Integer 属性上的 18.9 转换为 18），
+     * 与字面量模式下 Hibernate 对 {@code cb.equal(path, value)} 等的转换一致，build() 与 compile() 的结果相同
+     * @param cb CriteriaBuilder
+     * @param path 比较的属性
+     * @param value 比较值，不能为 null
+     * @return 字面量或参数占位
+     */
+    @SuppressWarnings("unchecked")
+    public <Y> Expression<Y> value(CriteriaBuilder cb, Expression<?> path, Object value) {
+        Class<?> type = path.getJavaType() == null ? null : ClassUtils.resolvePrimitiveIfNecessary(path.getJavaType());
+        Object converted = convert(value, type);
+        if (!parameterized) {
+            return (Expression<Y>) cb.literal(converted);
+        }
+        ParameterExpression<Object> parameter = cb.parameter((Class<Object>) (type != null && type.isInstance(converted) ? type : typeOf(converted)));
+        parameters.add(parameter);
+        values.add(converted);
+        return (Expression<Y>) parameter;
+    }
+
+    /**
+     * 多个比较值对应的表达式，用于 in
+     */
+    public Expression<?>[] values(CriteriaBuilder cb, Iterable<?> values) {
+        List<Expression<?>> expressions = new ArrayList<>();
+        for (Object value : values) {
+            expressions.add(value(cb, value));
+        }
+        return expressions.toArray(new Expression<?>[0]);
+    }
+
+    /**
+     * 与属性比较的多个值对应的表达式，用于 in，见 {@link #value(CriteriaBuilder, Expression, Object)}
+     */
+    public Expression<?>[] values(CriteriaBuilder cb, Expression<?> path, Iterable<?> values) {
+        List<Expression<?>> expressions = new ArrayList<>();
+        for (Object value : values) {
+            expressions.add(value(cb, path, value));
+        }
+        return expressions.toArray(new Expression<?>[0]);
+    }
+
+    /**
+     * 绑定本次渲染记录的参数
+     * @param query 由本次渲染的条件创建的查询
+     * @return query
+     */
+    public <Q extends Query> Q bind(Q query) {
+        if (parameterized) {
+            for (int i = 0; i < parameters.size(); i++) {
+                query.setParameter(parameters.get(i), values.get(i));
+            }
+        }
+        return query;
+    }
+
+    private static Class<?> typeOf(Object value) {
+        return value instanceof Enum ? ((Enum<?>) value).getDeclaringClass() : value.getClass();
+    }
+
+    /**
+     * 数值转换为属性的数值类型，同 Hibernate 字面量的转换；其它值原样返回
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (!(value instanceof Number) || type == null || type.isInstance(value)) {
+            return value;
+        }
+        Number number = (Number) value;
+        if (Integer.class.equals(type)) {
+            return number.intValue();
+        }
+        if (Long.class.equals(type)) {
+            return number.longValue();
+        }
+        if (Short.class.equals(type)) {
+            return number.shortValue();
+        }
+        if (Byte.class.equals(type)) {
+            return number.byteValue();
+        }
+        if (Double.class.equals(type)) {
+            return number.doubleValue();
+        }
+        if (Float.class.equals(type)) {
+            return number.floatValue();
+        }
+        if (BigDecimal.class.equals(type)) {
+            return number instanceof BigInteger ? new BigDecimal((BigInteger) number) : new BigDecimal(number.toString());
+        }
+        if (BigInteger.class.equals(type)) {
+            return number instanceof BigDecimal ? ((BigDecimal) number).toBigInteger() : BigInteger.valueOf(number.longValue());
+        }
+        return value;
+    }
+}
@@ -2,6 +2,7 @@ package com.github.wenhao.jpa.specification;
 
 import javax.persistence.criteria.*;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Supplier;
 
@@ -14,17 +15,17 @@ public abstract class ValuesSpecification<T> extends AbstractSpecification<T> {
 
     public ValuesSpecification(String property, Object... values) {
         super(property);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public ValuesSpecification(Field field, Object... values) {
         super(field);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public ValuesSpecification(List<Field> fields, Object... values) {
         super(fields);
-        this.values = values;
+        this.values = copy(values);
     }
 
     public ValuesSpecification(String property, Supplier<Object>... suppliers) {
@@ -44,24 +45,91 @@ public abstract class ValuesSpecification<T> extends AbstractSpecification<T> {
     }
 
 
+    /**
+     * 复制调用方的可变参数数组，之后修改数组不会影响已构建的条件及其指纹
+     */
+    private static Object[] copy(Object[] values) {
+        return values == null ? null : values.clone();
+    }
+
+    public Object[] getValues() {
+        return values == null ? null : values.clone();
+    }
+
+    /**
+     * eq(property, null) 的值数组为 null，等同于一个 null 值
+     */
     @Override
-    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+    protected Object[] getOperands() {
+        return values == null ? new Object[] {null} : values.clone();
+    }
+
+    /**
+     * 没有任何值时恒为假
+     */
+    @Override
+    public boolean isUnsatisfiable() {
+        return values != null && values.length == 0;
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb, SpecificationContext context) {
         From from = getRoot(root);
         String field = getProperty();
         if (values == null) {
-            return cb.isNull(from.get(field));
+            return doToPredicate(from, cb, context, (Object) null, field);
+        }
+        if (values.length == 0) {
+            return cb.disjunction();
         }
         if (values.length == 1) {
-            return doToPredicate(from, cb, values[0], field);
+            return doToPredicate(from, cb, context, values[0], field);
         }
+        return doToPredicate(from, cb, context, values, field);
+    }
 
+    /**
+     * 获取多个值的predicate，默认为各值 predicate 的 or
+     * @param root
+     * @param cb
+     * @param context
+     * @param values
+     * @param field
+     * @return
+     */
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object[] values, String field) {
         Predicate[] predicates = new Predicate[values.length];
         for (int i = 0; i < values.length; i++) {
-            predicates[i] = doToPredicate(root, cb, values[i], field);
+            predicates[i] = doToPredicate(root, cb, context, values[i], field);
         }
         return cb.or(predicates);
     }
 
+    /**
+     * 非 null 的值
+     */
+    protected static List<Object> nonNullValues(Object[] values) {
+        List<Object> list = new ArrayList<>(values.length);
+        for (Object value : values) {
+            if (value != null) {
+                list.add(value);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 获取单个predicate，可按上下文以参数绑定比较值；默认以字面量渲染，见 {@link #doToPredicate(From, CriteriaBuilder, Object, String)}
+     * @param root
+     * @param cb
+     * @param context
+     * @param value
+     * @param field
+     * @return
+     */
+    protected Predicate doToPredicate(From root, CriteriaBuilder cb, SpecificationContext context, Object value, String field) {
+        return doToPredicate(root, cb, value, field);
+    }
 
     /**
      * 获取单个predicate
@@ -1,6 +1,7 @@
 package com.github.wenhao.lambda;
 
 import lombok.NonNull;
+import org.springframework.util.ReflectionUtils;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -16,28 +17,53 @@ import java.util.stream.Collectors;
  * @param <U>
  */
 public class CascadeField<T, U> {
-    private SerializableFunction<T, U> func;
-    private SerializableBiConsumer<T, U> biConsumer;
-    private CascadeField parent;
+    private static final String DELIMITER = ".";
+
+    private final SerializableFunction<T, U> func;
+    private final SerializableBiConsumer<T, U> biConsumer;
+    private final CascadeField parent;
+    private final Class<?> declaringClass;
+    private final String name;
+
+    /**
+     * 首次使用时解析的属性名与路径，之后不变；并发解析的结果相同，可作为静态常量在线程间共享
+     */
+    private volatile List<String> fieldNames;
+    private volatile String path;
+    private volatile List<Field> fields;
 
 
     public CascadeField(SerializableFunction<T, U> func) {
-        this.func = func;
+        this(null, func, null, null, null);
     }
 
     public CascadeField(SerializableBiConsumer<T, U> biConsumer) {
-        this.biConsumer = biConsumer;
+        this(null, null, biConsumer, null, null);
     }
 
 
     private CascadeField(CascadeField parent, @NonNull SerializableFunction<T, U> func) {
-        this.parent = parent;
-        this.func = func;
+        this(parent, func, null, null, null);
     }
 
     private CascadeField(CascadeField parent, @NonNull SerializableBiConsumer<T, U> biConsumer) {
+        this(parent, null, biConsumer, null, null);
+    }
+
+    /**
+     * 按属性名构造，供 jpa-spec-processor 生成的属性常量使用，构造和取属性名都不需要反射
+     */
+    protected CascadeField(CascadeField parent, @NonNull Class<?> declaringClass, @NonNull String name) {
+        this(parent, null, null, declaringClass, name);
+    }
+
+    private CascadeField(CascadeField parent, SerializableFunction<T, U> func, SerializableBiConsumer<T, U> biConsumer,
+                         Class<?> declaringClass, String name) {
         this.parent = parent;
+        this.func = func;
         this.biConsumer = biConsumer;
+        this.declaringClass = declaringClass;
+        this.name = name;
     }
 
     public <V> CascadeField<T, V> with(SerializableFunction<U, V> func) {
@@ -60,34 +86,53 @@ public class CascadeField<T, U> {
     }
 
 
+    /**
+     * 路径上各级属性对应的字段，不可修改
+     */
     public List<Field> getFields() {
-        List<Field> list = new ArrayList<>(this.getCascades().size());
-        for (CascadeField c : this.getCascades()) {
-            if (c.func != null) {
-                list.add(LambdaUtils.getField(c.func));
+        List<Field> result = fields;
+        if (result == null) {
+            List<Field> list = parent == null ? new ArrayList<>(1) : new ArrayList<>(parent.getFields());
+            if (name != null) {
+                list.add(ReflectionUtils.findField(declaringClass, name));
             } else {
-                list.add(LambdaUtils.getField(c.biConsumer));
+                list.add(getField());
             }
+            result = Collections.unmodifiableList(list);
+            fields = result;
         }
-        return list;
+        return result;
     }
 
+    /**
+     * 路径上各级属性名，不可修改
+     */
     public List<String> getFieldNames() {
-        List<String> list = new ArrayList<>(this.getCascades().size());
-        for (CascadeField c : this.getCascades()) {
-            if (c.func != null) {
-                list.add(LambdaUtils.getField(c.func).getName());
-            } else {
-                list.add(LambdaUtils.getField(c.biConsumer).getName());
-            }
+        List<String> result = fieldNames;
+        if (result == null) {
+            List<String> list = parent == null ? new ArrayList<>(1) : new ArrayList<>(parent.getFieldNames());
+            list.add(name != null ? name : getField().getName());
+            result = Collections.unmodifiableList(list);
+            fieldNames = result;
         }
-        return list;
+        return result;
     }
 
     public String getFieldName(String comma) {
+        if (DELIMITER.equals(comma)) {
+            String result = path;
+            if (result == null) {
+                result = String.join(DELIMITER, getFieldNames());
+                path = result;
+            }
+            return result;
+        }
         return String.join(comma, this.getFieldNames());
     }
 
+    private Field getField() {
+        return func != null ? LambdaUtils.getField(func) : LambdaUtils.getField(biConsumer);
+    }
 
     @Override
     public String toString() {
@@ -101,4 +146,11 @@ public class CascadeField<T, U> {
     public static <T, U> CascadeField<T, U> of(SerializableBiConsumer<T, U> biConsumer) {
         return new CascadeField<>(biConsumer);
     }
+
+    /**
+     * 生成的属性常量，parent 为空时是根实体上的属性
+     */
+    public static <T, U> CascadeField<T, U> attribute(CascadeField parent, Class<?> declaringClass, String name) {
+        return new CascadeField<>(parent, declaringClass, name);
+    }
 }
@@ -12,8 +12,8 @@ import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -27,10 +27,26 @@ public class LambdaUtils {
     }
 
     /**
-     * 缓存反序列化导致的问题
+     * 每个 lambda 类对应一个实现方法（implClass + implMethodName），解析结果挂在 lambda 类上。
+     * 非捕获的方法引用每个调用点只有一个 lambda 类，捕获的方法引用每次调用产生新实例但类不变，都只解析一次。
+     * ClassValue 随类卸载，不阻止类加载器回收，数量受调用点个数限制。
      */
-    private static Map<Object, Field> cache = new ConcurrentHashMap<>();
+    private static final ClassValue<Resolution> RESOLUTIONS = new ClassValue<Resolution>() {
+        @Override
+        protected Resolution computeValue(Class<?> type) {
+            return new Resolution();
+        }
+    };
 
+    /**
+     * 同一实现方法在不同调用点的 lambda 类共用解析结果，以实现类上的方法名为键
+     */
+    private static final ClassValue<ConcurrentMap<String, Field>> FIELDS = new ClassValue<ConcurrentMap<String, Field>>() {
+        @Override
+        protected ConcurrentMap<String, Field> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
 
     public static <T, R> Field getField(SerializableFunction<T, R> func) {
         return getFieldCache(func);
@@ -55,34 +71,84 @@ public class LambdaUtils {
         return Collections.emptyList();
     }
 
+    /**
+     * 预先解析类（含父类）中 getter/setter 对应的字段，之后这些方法引用首次解析时不再查找字段
+     * @return 新解析的方法数
+     */
+    public static int prime(Class<?> type) {
+        int[] primed = {0};
+        ReflectionUtils.doWithMethods(type, method -> {
+            ConcurrentMap<String, Field> fields = FIELDS.get(method.getDeclaringClass());
+            String fieldName = accessorFieldName(method.getName());
+            if (fieldName != null && !fields.containsKey(method.getName())) {
+                Field field = ReflectionUtils.findField(method.getDeclaringClass(), fieldName);
+                if (field != null && fields.putIfAbsent(method.getName(), field) == null) {
+                    primed[0]++;
+                }
+            }
+        }, method -> method.getDeclaringClass() != Object.class && !method.isBridge() && !method.isSynthetic());
+        return primed[0];
+    }
+
     private static <F> Field getFieldCache(F func) {
-        return cache.computeIfAbsent(func, LambdaUtils::getField0);
+        Resolution resolution = RESOLUTIONS.get(func.getClass());
+        Field field = resolution.field;
+        if (field == null) {
+            // 不在锁内反射，并发时可能重复解析，结果相同
+            field = resolve(func);
+            resolution.field = field;
+        }
+        return field;
     }
 
     @SneakyThrows
-    private static <F> Field getField0(F func) {
+    static Field resolve(Object func) {
         // 通过获取对象方法，判断是否存在该方法
         Method method = func.getClass().getDeclaredMethod("writeReplace");
         method.setAccessible(Boolean.TRUE);
         // 利用jdk的SerializedLambda 解析方法引用
         SerializedLambda serializedLambda = (SerializedLambda) method.invoke(func);
         String methodName = serializedLambda.getImplMethodName();
-        String fieldName = resolveFieldName(methodName);
 
-        // 第3步 获取的Class是字符串，并且包名是“/”分割，需要替换成“.”，才能获取到对应的Class对象
+        // 获取的Class是字符串，并且包名是“/”分割，需要替换成“.”，以 lambda 所在的类加载器加载
         String declaredClass = serializedLambda.getImplClass().replace("/", ".");
-        final Class<?> aClass = ClassUtils.forName(declaredClass, null);
-        // 第4步 Spring 中的反射工具类获取Class中定义的Field
+        Class<?> aClass = ClassUtils.forName(declaredClass, func.getClass().getClassLoader());
+        ConcurrentMap<String, Field> fields = FIELDS.get(aClass);
+        Field field = fields.get(methodName);
+        if (field == null) {
+            field = findField(aClass, methodName);
+            fields.putIfAbsent(methodName, field);
+            if (log.isDebugEnabled()) {
+                log.debug("# lambda: [{}], method:[{}], field: [{}]", func, methodName, field);
+            }
+        }
+        return field;
+    }
+
+    @SneakyThrows
+    private static Field findField(Class<?> aClass, String methodName) {
+        String fieldName = resolveFieldName(methodName);
+        // Spring 中的反射工具类获取Class中定义的Field
         Field field = ReflectionUtils.findField(aClass, fieldName);
         if (field == null) {
             throw new NoSuchFieldException("Class [" + aClass + "] not found field name [" + fieldName + "]");
         }
-        if (log.isInfoEnabled()) {
-            log.info("# lambda: [{}], method:[{}], field: [{}]", func, methodName, field);
-        }
         return field;
     }
 
+    private static final class Resolution {
+        private volatile Field field;
+    }
+
+    private static String accessorFieldName(String methodName) {
+        for (String prefix : new String[] {METHOD_NAME_GET, METHOD_NAME_IS, METHOD_NAME_SET}) {
+            if (methodName.length() > prefix.length() && methodName.startsWith(prefix)) {
+                return Introspector.decapitalize(methodName.substring(prefix.length()));
+            }
+        }
+        return null;
+    }
+
     private static String resolveFieldName(String getOrSetMethodName) {
         String fieldName = "";
         if (getOrSetMethodName.startsWith(METHOD_NAME_GET)) {
@@ -21,10 +21,15 @@
  */
 package com.github.wenhao.jpa;
 
+import com.github.wenhao.jpa.repository.SimpleSpecificationRepository;
+import com.github.wenhao.jpa.repository.SpecificationRepositoryFactoryBean;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 
 @SpringBootApplication
+@EnableJpaRepositories(repositoryBaseClass = SimpleSpecificationRepository.class,
+        repositoryFactoryBeanClass = SpecificationRepositoryFactoryBean.class)
 public class Application {
 
     public static void main(String[] args) {
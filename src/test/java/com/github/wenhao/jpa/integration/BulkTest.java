@@ -0,0 +1,175 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Assignments;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.IdCard;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.lambda.CascadeField;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class BulkTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.save(new PersonBuilder().name("Jack").age(18).company("Foo").idCard("1001").build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).company("Foo").idCard("1002").phone("apple", "139").build());
+        personRepository.save(new PersonBuilder().name("Jackson").age(30).company("Bar").idCard("2001").build());
+        personRepository.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void should_update_in_one_statement_without_loading_entities() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .lambda()
+                .eq(Person::getCompany, "Foo")
+                .gt(Person::getAge, 18)
+                .build();
+
+        // when
+        int updated = personRepository.update(specification, Assignments.<Person>builder()
+                .set(Person::getCompany, "Baz")
+                .set(Person::getNickName, "Ric"));
+
+        // then
+        assertThat(updated).isEqualTo(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        entityManager.clear();
+        Person eric = personRepository.findAll(Specifications.<Person>and().eq("name", "Eric").build()).get(0);
+        assertThat(eric.getCompany()).isEqualTo("Baz");
+        assertThat(eric.getNickName()).isEqualTo("Ric");
+    }
+
+    @Test
+    public void should_update_through_association_by_selected_ids() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .lambda()
+                .eq(CascadeField.of(Person::getIdCard).with(IdCard::getNumber), "1001", "1002")
+                .build();
+
+        // when
+        int updated = personRepository.update(specification, Assignments.<Person>builder()
+                .set(Person::getCompany, null)
+                .set("age", 40));
+
+        // then
+        assertThat(updated).isEqualTo(2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        entityManager.clear();
+        List<Person> persons = personRepository.findAll(Specifications.<Person>and().eq("age", 40).build());
+        assertThat(persons).extracting(Person::getName).containsOnly("Jack", "Eric");
+        assertThat(persons).extracting(Person::getCompany).containsOnlyNulls();
+    }
+
+    @Test
+    public void should_update_with_semi_join() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "apple")
+                .build();
+
+        // when
+        int updated = personRepository.update(specification, Assignments.<Person>builder().set("married", true));
+
+        // then
+        assertThat(updated).isEqualTo(1);
+        entityManager.clear();
+        assertThat(personRepository.findAll(Specifications.<Person>and().eq("married", true).build()))
+                .extracting(Person::getName)
+                .containsOnly("Eric");
+    }
+
+    @Test
+    public void should_delete_with_compiled_specification() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("company", "Bar")
+                .ge("age", 20)
+                .compile();
+
+        // when
+        int deleted = personRepository.bulkDelete(specification);
+
+        // then
+        assertThat(deleted).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        entityManager.clear();
+        assertThat(personRepository.findAll()).extracting(Person::getName).containsOnly("Jack", "Eric");
+    }
+
+    @Test
+    public void should_not_execute_unsatisfiable_statements() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("name", Collections.emptyList())
+                .build();
+
+        // when
+        int updated = personRepository.update(specification, Assignments.<Person>builder().set("age", 1));
+        int deleted = personRepository.bulkDelete(specification);
+
+        // then
+        assertThat(updated).isZero();
+        assertThat(deleted).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void should_reject_empty_assignments() {
+        assertThatThrownBy(() -> personRepository.update(null, Assignments.<Person>builder()))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Assignments;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.IdCard;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.repository.SpecificationCache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class CacheTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.setSpecificationCache(new SpecificationCache());
+        personRepository.save(new PersonBuilder().name("Jack").age(18).idCard("1001").build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).idCard("1002").build());
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    public void should_serve_repeated_lookups_from_cache() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().ge("age", 18).build();
+
+        // when
+        List<Person> first = personRepository.findAllCached(specification, Sort.by("name"));
+        long count = personRepository.countCached(specification);
+        long statements = statistics.getPrepareStatementCount();
+        List<Person> second = personRepository.findAllCached(Specifications.<Person>and().ge("age", 18).build(), Sort.by("name"));
+
+        // then
+        assertThat(first).extracting(Person::getName).containsExactly("Eric", "Jack");
+        assertThat(count).isEqualTo(2);
+        assertThat(second).extracting(Person::getName).containsExactly("Eric", "Jack");
+        assertThat(personRepository.countCached(specification)).isEqualTo(2);
+        // 一条主键查询，外加每个实体的 idCard 关联
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements + 3);
+        assertThat(personRepository.getSpecificationCache().getHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_reload_cached_entities_per_caller() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().ge("age", 18).build();
+        List<Person> first = personRepository.findAllCached(specification, Sort.by("name"));
+
+        // when
+        first.get(0).setName("Changed");
+        List<Person> second = personRepository.findAllCached(specification, Sort.by("name"));
+
+        // then
+        assertThat(second.get(0)).isNotSameAs(first.get(0));
+        assertThat(second).extracting(Person::getName).containsExactly("Eric", "Jack");
+        assertThat(personRepository.getSpecificationCache().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_after_entity_changes() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().ge("age", 18).build();
+        personRepository.findAllCached(specification, Sort.unsorted());
+
+        // when
+        personRepository.save(new PersonBuilder().name("Jackson").age(30).build());
+
+        // then
+        assertThat(personRepository.findAllCached(specification, Sort.unsorted()))
+                .extracting(Person::getName)
+                .containsExactlyInAnyOrder("Jack", "Eric", "Jackson");
+    }
+
+    @Test
+    public void should_invalidate_only_results_touching_the_changed_type() {
+        // given
+        Specification<Person> byName = Specifications.<Person>and().eq("name", "Jack").build();
+        Specification<Person> byIdCard = Specifications.<Person>and().eq("idCard.number", "1001").build();
+        personRepository.findAllCached(byName, Sort.unsorted());
+        personRepository.findAllCached(byIdCard, Sort.unsorted());
+        SpecificationCache cache = personRepository.getSpecificationCache();
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.createQuery("select c from IdCard c where c.number = '1001'", IdCard.class)
+                        .getSingleResult()
+                        .setNumber("3001"));
+
+        // then
+        assertThat(personRepository.findAllCached(byName, Sort.unsorted())).hasSize(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(personRepository.findAllCached(byIdCard, Sort.unsorted())).isEmpty();
+        assertThat(cache.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_invalidate_after_bulk_update() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().eq("age", 40).build();
+        assertThat(personRepository.countCached(specification)).isZero();
+
+        // when
+        personRepository.update(Specifications.<Person>and().eq("name", "Jack").build(), Assignments.<Person>builder().set("age", 40));
+
+        // then
+        assertThat(personRepository.countCached(specification)).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_cache_custom_specifications() {
+        // given
+        Specification<Person> custom = (root, query, cb) -> cb.equal(root.get("name"), "Jack");
+
+        // when
+        personRepository.findAllCached(custom, Sort.unsorted());
+        personRepository.findAllCached(custom, Sort.unsorted());
+
+        // then
+        assertThat(personRepository.getSpecificationCache().size()).isZero();
+        assertThat(personRepository.getSpecificationCache().getHitCount()).isZero();
+    }
+
+    @Test
+    public void should_evict_by_size_and_time_to_live() throws InterruptedException {
+        // given
+        personRepository.setSpecificationCache(new SpecificationCache(16, Duration.ofMillis(200)));
+        SpecificationCache cache = personRepository.getSpecificationCache();
+
+        // when
+        for (int age = 100; age < 164; age++) {
+            personRepository.countCached(Specifications.<Person>and().eq("age", age).build());
+        }
+        Specification<Person> specification = Specifications.<Person>and().eq("age", 18).build();
+        personRepository.countCached(specification);
+        Thread.sleep(300);
+        personRepository.countCached(specification);
+
+        // then
+        assertThat(cache.size()).isLessThanOrEqualTo(16);
+        assertThat(cache.getHitCount()).isZero();
+    }
+}
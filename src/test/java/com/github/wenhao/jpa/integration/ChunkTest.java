@@ -0,0 +1,213 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.ComposedSpecification;
+import com.github.wenhao.jpa.PredicateBuilder;
+import com.github.wenhao.jpa.Sorts;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ChunkTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @AfterEach
+    public void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    public void should_be_able_to_find_by_using_in_chunks() {
+        // given
+        for (int age = 1; age <= 10; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .build());
+        }
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("age", range(0, 20))
+                .ne("name", "Person3")
+                .build();
+
+        List<Person> persons = personRepository.findAllInChunks(specification, Sorts.builder().desc("age").build(), 3);
+
+        // then
+        assertThat(persons.stream().map(Person::getAge).collect(Collectors.toList()))
+                .containsExactly(10, 9, 8, 7, 6, 5, 4, 2, 1);
+    }
+
+    @Test
+    public void should_be_able_to_find_by_using_in_chunks_in_parallel() {
+        // given
+        for (int age = 1; age <= 10; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .build());
+        }
+        Collection<Boolean> readOnly = new ConcurrentLinkedQueue<>();
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("age", range(0, 20))
+                .ne("name", "Person3")
+                .predicate((Specification<Person>) (root, query, cb) -> {
+                    readOnly.add(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+                    return cb.conjunction();
+                })
+                .build();
+
+        // when
+        List<Person> persons = personRepository.findAllInChunksInParallel(specification, Sorts.builder().desc("age").build(), 3);
+
+        // then
+        assertThat(persons.stream().map(Person::getAge).collect(Collectors.toList()))
+                .containsExactly(10, 9, 8, 7, 6, 5, 4, 2, 1);
+        assertThat(readOnly).hasSize(7).containsOnly(true);
+    }
+
+    @Test
+    public void should_reject_sort_that_cannot_be_merged_in_memory() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("age", range(0, 20))
+                .build();
+
+        // then
+        assertThatThrownBy(() -> personRepository.findAllInChunks(specification, Sorts.builder().asc("name").build(), 3))
+                .hasMessageContaining("Unable to merge chunks sorted by [name]");
+    }
+
+    @Test
+    public void should_split_oversized_in_and_not_in_within_one_query() {
+        // given
+        for (int age = 1; age <= 5; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .build());
+        }
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .inClauseSplitting(true)
+                .in("age", range(0, 2500))
+                .notIn("age", range(3, 1503))
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(((ComposedSpecification<Person>) specification).getSpecifications())
+                .allSatisfy(in -> assertThat(in).isInstanceOf(ComposedSpecification.class));
+        assertThat(persons.stream().map(Person::getAge).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(1, 2);
+    }
+
+    @Test
+    public void should_split_oversized_in_nested_in_composed_specification() {
+        // given
+        for (int age = 1; age <= 5; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .build());
+        }
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .inClauseSplitting(true)
+                .ne("name", "Person5")
+                .predicate(Specifications.<Person>or()
+                        .in("age", range(2, 1502))
+                        .eq("name", "Person1")
+                        .build())
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        ComposedSpecification<Person> nested = (ComposedSpecification<Person>) ((ComposedSpecification<Person>) specification).getSpecifications().get(1);
+        assertThat(nested.getSpecifications().get(0)).isInstanceOf(ComposedSpecification.class);
+        assertThat(persons.stream().map(Person::getAge).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(1, 2, 3, 4);
+    }
+
+    @Test
+    public void should_split_oversized_in_merged_by_optimizer() {
+        // given
+        for (int age = 1; age <= 5; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .build());
+        }
+        PredicateBuilder<Person> builder = Specifications.<Person>or()
+                .optimize(true)
+                .inClauseSplitting(true);
+        for (int age = 3; age < 1503; age++) {
+            builder.eq("age", age);
+        }
+
+        // when
+        Specification<Person> specification = builder.build();
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(((ComposedSpecification<Person>) specification).getSpecifications())
+                .singleElement().isInstanceOf(ComposedSpecification.class);
+        assertThat(persons.stream().map(Person::getAge).collect(Collectors.toList()))
+                .containsExactlyInAnyOrder(3, 4, 5);
+    }
+
+    private List<Integer> range(int from, int to) {
+        List<Integer> values = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            values.add(i);
+        }
+        return values;
+    }
+}
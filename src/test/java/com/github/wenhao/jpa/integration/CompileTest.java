@@ -0,0 +1,223 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.specification.CompareSpecification;
+import com.github.wenhao.jpa.specification.ValuesSpecification;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Predicate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class CompileTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void should_be_able_to_find_by_using_compiled_specification() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .married(true)
+                .build();
+        Person eric = new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .build();
+        personRepository.save(jack);
+        personRepository.save(eric);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .between("age", 10, 30)
+                .ge("age", 18)
+                .like("name", "%ac%", "%ri%")
+                .in("name", Arrays.asList("Jack", "Eric"))
+                .predicate(Specifications.<Person>or()
+                        .eq("married", true)
+                        .eq("name", "Eric")
+                        .build())
+                .compile();
+
+        List<Person> persons = personRepository.findAll(specification);
+        Page<Person> page = personRepository.findAll(specification, PageRequest.of(0, 1));
+
+        // then
+        assertThat(persons.size()).isEqualTo(2);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_convert_literal_values_to_attribute_type() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .build();
+        personRepository.save(jack);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 17L)
+                .le("age", 18.0)
+                // 字面量模式下按 age 的类型转换为 18
+                .ge("age", 18.9)
+                .between("age", 10L, 30L)
+                .eq("age", 18L)
+                .ne("age", 20L, 21L)
+                .in("age", Arrays.asList(18L, 19L))
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_bind_parameters_as_attribute_type() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .build();
+        personRepository.save(jack);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 17L)
+                .le("age", 18.0)
+                // 与字面量模式一样按 age 的类型转换为 18
+                .ge("age", 18.9)
+                .between("age", 10L, 30L)
+                .eq("age", 18L)
+                .ne("age", 20L, 21L)
+                .in("age", Arrays.asList(18L, 19L))
+                .compile();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_render_subclass_implementing_only_literal_predicate() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .build();
+        Person eric = new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .build();
+        personRepository.save(jack);
+        personRepository.save(eric);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .predicate(new ValuesSpecification<Person>("name", "Jack") {
+                    @Override
+                    protected Predicate doToPredicate(From root, CriteriaBuilder cb, Object value, String field) {
+                        return cb.equal(root.get(field), value);
+                    }
+                })
+                .predicate(new CompareSpecification<Person>("age", 19) {
+                    @Override
+                    protected Predicate doToPredicate(From root, CriteriaBuilder cb, String field, Comparable<Object> compare) {
+                        return cb.lessThan(root.get(field), compare);
+                    }
+                })
+                .compile();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_share_query_plan_between_values_of_the_same_shape() {
+        // given
+        statistics.clear();
+
+        // when
+        for (int age = 1000; age < 1010; age++) {
+            personRepository.findAll(Specifications.<Person>and()
+                    .gt("age", age)
+                    .eq("married", true)
+                    .compile());
+        }
+
+        // then
+        assertThat(statistics.getQueryPlanCacheMissCount()).isLessThanOrEqualTo(1);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThanOrEqualTo(9);
+    }
+
+    @Test
+    public void should_create_query_plan_for_each_value_without_compile() {
+        // given
+        statistics.clear();
+
+        // when
+        for (int age = 2000; age < 2010; age++) {
+            personRepository.findAll(Specifications.<Person>and()
+                    .gt("age", age)
+                    .eq("married", true)
+                    .build());
+        }
+
+        // then
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.Phone;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.lambda.CascadeField;
+import com.github.wenhao.lambda.SerializableFunction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class ExistsTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    public void setUp() {
+        save(new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .phone("HuaWei", "18000000000")
+                .phone("iPhone", "13900000000")
+                .build());
+        save(new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .phone("HuaWei", "18800000000")
+                .build());
+        save(new PersonBuilder()
+                .name("Alex")
+                .age(30)
+                .phone("Samsung", "15000000000")
+                .build());
+    }
+
+    @Test
+    public void should_not_repeat_entities_when_using_semi_join() {
+        // given
+        Specification<Person> join = Specifications.<Person>and()
+                .eq("phones.brand", "HuaWei")
+                .build();
+        Specification<Person> semiJoin = Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "HuaWei")
+                .build();
+
+        // when
+        Page<Person> page = personRepository.findAll(semiJoin, PageRequest.of(0, 10, Sort.by("name")));
+
+        // then
+        assertThat(personRepository.findAll(join)).hasSize(3);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).extracting(Person::getName).containsExactly("Eric", "Jack");
+    }
+
+    @Test
+    public void should_apply_conditions_on_same_association_to_same_element() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "HuaWei")
+                .like("phones.number", "139%")
+                .gt("age", 10)
+                .build();
+        Specification<Person> number = Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "HuaWei")
+                .like("phones.number", "18%")
+                .build();
+
+        // then
+        assertThat(personRepository.findAll(specification)).isEmpty();
+        assertThat(personRepository.findAll(number)).extracting(Person::getName).containsExactlyInAnyOrder("Jack", "Eric");
+    }
+
+    @Test
+    public void should_keep_split_in_on_same_element_when_using_semi_join() {
+        // given
+        List<String> numbers = new ArrayList<>();
+        for (int i = 0; i < 1500; i++) {
+            numbers.add(String.valueOf(13600000000L + i));
+        }
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .semiJoin(true)
+                .inClauseSplitting(true)
+                .eq("phones.brand", "iPhone")
+                .in("phones.number", numbers)
+                .build();
+        numbers.add("13900000000");
+        Specification<Person> matched = Specifications.<Person>and()
+                .semiJoin(true)
+                .inClauseSplitting(true)
+                .eq("phones.brand", "iPhone")
+                .in("phones.number", numbers)
+                .build();
+
+        // then
+        assertThat(personRepository.findAll(specification)).isEmpty();
+        assertThat(personRepository.findAll(matched)).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_bind_parameters_in_compiled_semi_join() {
+        // given
+        Specification<Person> specification = Specifications.<Person>or()
+                .semiJoin(true)
+                .eq("phones.brand", "Samsung")
+                .eq("name", "Eric")
+                .compile();
+
+        // then
+        assertThat(personRepository.count(specification)).isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void should_be_able_to_use_exists_with_cascade_field() {
+        // given
+        CascadeField<Person, String> brand = CascadeField.of(Person::getPhones)
+                .with((SerializableFunction) (SerializableFunction<Phone, String>) Phone::getBrand);
+        CascadeField<Person, String> number = CascadeField.of(Person::getPhones)
+                .with((SerializableFunction) (SerializableFunction<Phone, String>) Phone::getNumber);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .lambda()
+                .exists(Specifications.<Person>and()
+                        .lambda()
+                        .eq(brand, "HuaWei")
+                        .eq(number, "13600000000")
+                        .build())
+                .build();
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    private void save(Person person) {
+        for (Phone phone : person.getPhones()) {
+            phone.setPerson(person);
+        }
+        personRepository.save(person);
+    }
+}
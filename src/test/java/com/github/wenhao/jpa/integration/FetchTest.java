@@ -0,0 +1,168 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.Phone;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class FetchTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        save(new PersonBuilder().name("Jack").age(18).idCard("1001").phone("HuaWei", "13600000000").phone("iPhone", "13900000000").build());
+        save(new PersonBuilder().name("Eric").age(20).idCard("1002").phone("HuaWei", "18800000000").build());
+        save(new PersonBuilder().name("Alex").age(30).idCard("1003").phone("Samsung", "15000000000").build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void should_fetch_associations_without_extra_selects() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("idCard")
+                .gt("age", 10)
+                .lambda()
+                .fetch(Person::getPhones)
+                .build();
+
+        // when
+        Page<Person> page = personRepository.findAll(specification, PageRequest.of(0, 2, Sort.by("name")));
+        page.getContent().forEach(person -> {
+            person.getIdCard().getNumber();
+            person.getPhones().size();
+        });
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Person::getName).containsExactly("Alex", "Eric");
+        assertThat(page.getContent().get(1).getPhones()).hasSize(1);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void should_reuse_fetch_join_in_predicates() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("idCard")
+                .eq("idCard.number", "1001")
+                .build();
+
+        CriteriaBuilder cb = entityManager.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+
+        // when
+        specification.toPredicate(root, query, cb);
+
+        // then
+        assertThat(root.getJoins()).isEmpty();
+        assertThat(root.getFetches()).hasSize(1);
+        assertThat(personRepository.findAll(specification)).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_load_whole_fetched_collection_when_filtering_on_it() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("phones")
+                .eq("phones.brand", "iPhone")
+                .build();
+
+        // when
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+        assertThat(persons.get(0).getPhones()).extracting(Phone::getBrand).containsExactlyInAnyOrder("HuaWei", "iPhone");
+    }
+
+    @Test
+    public void should_skip_fetch_in_count_query() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("phones")
+                .eq("phones.brand", "HuaWei")
+                .build();
+
+        // then
+        assertThat(personRepository.count(specification)).isEqualTo(2);
+    }
+
+    @Test
+    public void should_count_distinct_roots_when_fetching_collection() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("phones")
+                .like("phones.number", "1%")
+                .build();
+
+        // when
+        Page<Person> page = personRepository.findAll(specification, PageRequest.of(0, 2, Sort.by("name")));
+
+        // then
+        assertThat(page.getContent()).extracting(Person::getName).containsExactly("Alex", "Eric");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(personRepository.count(specification)).isEqualTo(3);
+    }
+
+    private void save(Person person) {
+        for (Phone phone : person.getPhones()) {
+            phone.setPerson(person);
+        }
+        personRepository.save(person);
+    }
+}
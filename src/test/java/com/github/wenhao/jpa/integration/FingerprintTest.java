@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.specification.Fingerprint;
+import com.github.wenhao.jpa.specification.InSpecification;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FingerprintTest {
+
+    @Test
+    public void should_be_structurally_equal_when_built_twice() {
+        // given
+        Specification<Person> first = specification("Jack", 18);
+        Specification<Person> second = specification("Jack", 18);
+
+        // when
+        Set<Specification<Person>> specifications = new HashSet<>(Arrays.asList(first, second));
+
+        // then
+        assertThat(first).isEqualTo(second).hasSameHashCodeAs(second);
+        assertThat(specifications).hasSize(1);
+        assertThat(Fingerprint.of(first)).isEqualTo(Fingerprint.of(second));
+    }
+
+    @Test
+    public void should_share_shape_but_not_fingerprint_when_values_differ() {
+        // given
+        Fingerprint jack = Fingerprint.of(specification("Jack", 18));
+        Fingerprint eric = Fingerprint.of(specification("Eric", 20));
+
+        // then
+        assertThat(jack).isNotEqualTo(eric);
+        assertThat(jack.getShape()).isEqualTo(eric.getShape());
+        assertThat(jack.getValues()).containsExactly("Jack", "Rose", "Tom", "Jack", 18, "%J%");
+        assertThat(jack.toString()).doesNotContain("Jack");
+    }
+
+    @Test
+    public void should_distinguish_shapes() {
+        // given
+        Fingerprint in = Fingerprint.of(new InSpecification<Person>("name", Arrays.asList("Jack", "Eric")));
+        Fingerprint padded = Fingerprint.of(new InSpecification<Person>("name", Arrays.asList("Jack", "Eric", "Eric")));
+        Fingerprint or = Fingerprint.of(Specifications.<Person>or().eq("name", "Jack").gt("age", 18).build());
+        Fingerprint and = Fingerprint.of(Specifications.<Person>and().eq("name", "Jack").gt("age", 18).build());
+        Fingerprint nullValue = Fingerprint.of(Specifications.<Person>and().eq("name", (Object) null).build());
+        Fingerprint compiled = Fingerprint.of(Specifications.<Person>and().eq("name", "Jack").gt("age", 18).compile());
+
+        // then
+        assertThat(in.getShape()).isNotEqualTo(padded.getShape());
+        assertThat(or.getShape()).isNotEqualTo(and.getShape());
+        assertThat(and.getShape()).isNotEqualTo(compiled.getShape());
+        assertThat(nullValue.getShape()).contains("0+null");
+    }
+
+    @Test
+    public void should_not_fingerprint_custom_specifications() {
+        // given
+        Specification<Person> custom = (root, query, cb) -> cb.isTrue(root.get("married"));
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("name", "Jack")
+                .predicate(custom)
+                .build();
+
+        // then
+        assertThat(Fingerprint.of(custom)).isNull();
+        assertThat(Fingerprint.of(specification)).isNull();
+        assertThat(specification).isEqualTo(Specifications.<Person>and().eq("name", "Jack").predicate(custom).build());
+    }
+
+    @Test
+    public void should_keep_fingerprint_when_caller_changes_values_array() {
+        // given
+        Object[] names = {"Jack", "Eric"};
+        Specification<Person> specification = Specifications.<Person>and().eq("name", names).build();
+        Fingerprint fingerprint = Fingerprint.of(specification);
+
+        // when
+        names[0] = "Tom";
+
+        // then
+        assertThat(Fingerprint.of(specification)).isEqualTo(fingerprint);
+        assertThat(fingerprint.getValues()).containsExactly("Jack", "Eric");
+    }
+
+    private Specification<Person> specification(String name, int age) {
+        return Specifications.<Person>and()
+                .semiJoin(true)
+                .fetch("addresses")
+                .eq("name", name, "Rose")
+                .in("phones.brand", Arrays.asList("Tom", name))
+                .predicate(Specifications.or()
+                        .ge("age", age)
+                        .like("nickName", "%" + name.charAt(0) + "%")
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.ComposedSpecification;
+import com.github.wenhao.jpa.ExecutionHints;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+@DataJpaTest
+public class HintTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void should_carry_hints_with_specification() {
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetchSize(1000)
+                .timeout(2000)
+                .lambda()
+                .readOnly(true)
+                .cacheable(false)
+                .hint("org.hibernate.comment", "lookup")
+                .eq(Person::getName, "Jack")
+                .build();
+
+        // then
+        assertThat(((ComposedSpecification<Person>) specification).getHints()).containsExactly(
+                entry(ExecutionHints.FETCH_SIZE, 1000),
+                entry(ExecutionHints.TIMEOUT, 2000),
+                entry(ExecutionHints.READ_ONLY, true),
+                entry(ExecutionHints.CACHEABLE, false),
+                entry("org.hibernate.comment", "lookup"));
+        assertThat(specification).isEqualTo(Specifications.<Person>and().eq("name", "Jack").build());
+    }
+
+    @Test
+    public void should_apply_hints_to_queries() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .readOnly(true)
+                .fetchSize(500)
+                .timeout(5000)
+                .ge("age", 18)
+                .compile();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+        // when
+        List<Person> persons = personRepository.findAll(specification, Sort.by("name"));
+        Page<Person> page = personRepository.findAll(specification, PageRequest.of(0, 1));
+
+        // then
+        assertThat(persons).hasSize(2).allMatch(session::isReadOnly);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).allMatch(session::isReadOnly);
+    }
+
+    @Test
+    public void should_load_writable_entities_without_hints() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().ge("age", 18).build();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+        // when
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).hasSize(2).noneMatch(session::isReadOnly);
+    }
+}
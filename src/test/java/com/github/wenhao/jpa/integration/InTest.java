@@ -23,23 +23,31 @@ package com.github.wenhao.jpa.integration;
 
 import com.github.wenhao.jpa.Specifications;
 import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import com.github.wenhao.jpa.listener.SpecificationMetrics;
 import com.github.wenhao.jpa.model.Person;
 import com.github.wenhao.jpa.repository.PersonRepository;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 public class InTest {
 
     @Autowired
     private PersonRepository personRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     @Test
     public void should_be_able_to_find_by_using_in() {
@@ -68,4 +76,138 @@ public class InTest {
         // then
         assertThat(persons.size()).isEqualTo(2);
     }
+
+    @Test
+    public void should_not_see_changes_to_values_after_build() {
+        // given
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        List<String> names = new ArrayList<>(Arrays.asList("Jack"));
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("name", names)
+                .build();
+
+        // when
+        names.add("Eric");
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_be_able_to_find_by_using_padded_in() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .build();
+        Person eric = new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .build();
+        Person aaron = new PersonBuilder()
+                .name("Aaron")
+                .age(30)
+                .build();
+        personRepository.save(jack);
+        personRepository.save(eric);
+        personRepository.save(aaron);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .inClausePadding(true)
+                .in("name", Arrays.asList("Jack", "Eric", "Alex"))
+                .lambda()
+                .notIn(Person::getAge, Arrays.asList(20, 40, 50))
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons.size()).isEqualTo(1);
+        assertThat(persons.get(0).getName()).isEqualTo("Jack");
+    }
+
+    @Test
+    public void should_pad_when_enabled_after_in() {
+        // given
+        SpecificationMetrics metrics = new SpecificationMetrics();
+        SpecificationListeners.register(metrics);
+
+        // when
+        try {
+            for (int size = 5; size <= 8; size++) {
+                personRepository.findAll(Specifications.<Person>and()
+                        .in("age", ages(size))
+                        .inClausePadding(true)
+                        .predicate(Specifications.<Person>or()
+                                .notIn("age", ages(size + 8))
+                                .build())
+                        .compile());
+            }
+        } finally {
+            SpecificationListeners.unregister(metrics);
+        }
+
+        // then
+        assertThat(metrics.getInListShapes()).isEqualTo(2);
+        assertThat(metrics.getInListSizes().getCount()).isEqualTo(8);
+    }
+
+    @Test
+    public void should_count_distinct_in_shapes_without_padding() {
+        // given
+        SpecificationMetrics metrics = new SpecificationMetrics();
+        SpecificationListeners.register(metrics);
+
+        // when
+        try {
+            for (int size = 5; size <= 8; size++) {
+                personRepository.findAll(Specifications.<Person>and()
+                        .in("age", ages(size))
+                        .compile());
+            }
+        } finally {
+            SpecificationListeners.unregister(metrics);
+        }
+
+        // then
+        assertThat(metrics.getInListShapes()).isEqualTo(4);
+    }
+
+    @Test
+    public void should_share_query_plan_between_sizes_when_padding() {
+        // given
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // when
+        for (int size = 5; size <= 8; size++) {
+            personRepository.findAll(Specifications.<Person>and()
+                    .inClausePadding(true)
+                    .in("age", ages(size))
+                    .compile());
+        }
+        long padded = statistics.getQueryPlanCacheMissCount();
+        statistics.clear();
+        for (int size = 9; size <= 12; size++) {
+            personRepository.findAll(Specifications.<Person>and()
+                    .in("age", ages(size))
+                    .compile());
+        }
+        long unpadded = statistics.getQueryPlanCacheMissCount();
+
+        // then
+        assertThat(padded).isLessThanOrEqualTo(1);
+        assertThat(unpadded).isEqualTo(4);
+    }
+
+    private List<Integer> ages(int size) {
+        List<Integer> ages = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            ages.add(i);
+        }
+        return ages;
+    }
 }
@@ -21,19 +21,26 @@
  */
 package com.github.wenhao.jpa.integration;
 
+import com.github.wenhao.jpa.Sorts;
 import com.github.wenhao.jpa.Specifications;
 import com.github.wenhao.jpa.builder.PersonBuilder;
 import com.github.wenhao.jpa.model.Person;
 import com.github.wenhao.jpa.model.Phone;
 import com.github.wenhao.jpa.repository.PersonRepository;
 import com.github.wenhao.jpa.repository.PhoneRepository;
+import com.github.wenhao.lambda.CascadeField;
 import org.apache.commons.lang3.StringUtils;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
 import java.util.List;
 import java.util.Set;
 
@@ -44,6 +51,8 @@ public class JoinTest {
     private PersonRepository personRepository;
     @Autowired
     private PhoneRepository phoneRepository;
+    @Autowired
+    private TestEntityManager entityManager;
 
     @Test
     public void should_be_able_to_find_by_using_many_to_one_query() {
@@ -118,4 +127,155 @@ public class JoinTest {
         assertThat(phones.size()).isEqualTo(2);
     }
 
+    @Test
+    public void should_join_the_same_association_only_once() {
+        // given
+        Specification<Phone> specification = Specifications.<Phone>and()
+                .eq("person.name", "Jack")
+                .gt("person.age", 10)
+                .lambda()
+                .le(CascadeField.of(Phone::getPerson).with(Person::getAge), 20)
+                .build();
+
+        CriteriaBuilder cb = entityManager.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Phone> query = cb.createQuery(Phone.class);
+        Root<Phone> root = query.from(Phone.class);
+
+        // when
+        specification.toPredicate(root, query, cb);
+
+        // then
+        assertThat(root.getJoins()).hasSize(1);
+    }
+
+    @Test
+    public void should_join_collection_once_per_condition() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .phone("iPhone", "13900000000")
+                .build();
+        personRepository.save(jack);
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("phones.brand", "HuaWei")
+                .eq("phones.number", "13900000000")
+                .build();
+
+        CriteriaBuilder cb = entityManager.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+
+        // when
+        specification.toPredicate(root, query, cb);
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(root.getJoins()).hasSize(2);
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_match_same_collection_element_with_semi_join() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .phone("iPhone", "13900000000")
+                .build();
+        personRepository.save(jack);
+
+        // when
+        List<Person> differentPhones = personRepository.findAll(Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "HuaWei")
+                .eq("phones.number", "13900000000")
+                .build());
+        List<Person> samePhone = personRepository.findAll(Specifications.<Person>and()
+                .semiJoin(true)
+                .eq("phones.brand", "HuaWei")
+                .eq("phones.number", "13600000000")
+                .build());
+
+        // then
+        assertThat(differentPhones).isEmpty();
+        assertThat(samePhone).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_be_able_to_sort_by_joined_association() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .build();
+        Person eric = new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .phone("HuaWei", "18000000000")
+                .build();
+        jack.getPhones().forEach(phone -> phone.setPerson(jack));
+        eric.getPhones().forEach(phone -> phone.setPerson(eric));
+        personRepository.save(jack);
+        personRepository.save(eric);
+
+        // when
+        Specification<Phone> specification = Specifications.<Phone>and()
+                .eq("brand", "HuaWei")
+                .gt("person.age", 10)
+                .build();
+        Sort sort = Sorts.<Phone>builder()
+                .lambda()
+                .desc(CascadeField.of(Phone::getPerson).with(Person::getAge))
+                .build();
+
+        List<Phone> phones = phoneRepository.findAll(specification, sort);
+
+        // then
+        assertThat(phones.size()).isEqualTo(2);
+        assertThat(phones.get(0).getPerson().getName()).isEqualTo("Eric");
+    }
+
+    @Test
+    public void should_be_able_to_find_by_using_multiple_values_on_joined_association() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .build();
+        Person eric = new PersonBuilder()
+                .name("Eric")
+                .age(20)
+                .phone("iPhone", "18000000000")
+                .build();
+        Person alex = new PersonBuilder()
+                .name("Alex")
+                .age(30)
+                .phone("Samsung", "13900000000")
+                .build();
+        for (Person person : new Person[] {jack, eric, alex}) {
+            person.getPhones().forEach(phone -> phone.setPerson(person));
+            personRepository.save(person);
+        }
+
+        // when
+        Specification<Phone> equal = Specifications.<Phone>and()
+                .eq("person.name", "Jack", "Eric")
+                .build();
+        Specification<Phone> notEqual = Specifications.<Phone>and()
+                .lambda()
+                .ne(CascadeField.of(Phone::getPerson).with(Person::getName), "Jack", "Eric", null)
+                .build();
+
+        List<Phone> equalPhones = phoneRepository.findAll(equal);
+        List<Phone> notEqualPhones = phoneRepository.findAll(notEqual);
+
+        // then
+        assertThat(equalPhones).extracting(Phone::getBrand).containsExactlyInAnyOrder("HuaWei", "iPhone");
+        assertThat(notEqualPhones).extracting(Phone::getBrand).containsExactly("Samsung");
+    }
 }
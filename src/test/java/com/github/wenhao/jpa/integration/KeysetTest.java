@@ -0,0 +1,171 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Sorts;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.KeysetSlice;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+public class KeysetTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    public void setUp() {
+        String[] names = {"Jack", "Eric", "Same", "Same", "Alex", "Tom", "Bob", "Same", "Lucy", "Lily", "Mike"};
+        int[] ages = {18, 18, 20, 20, 20, 25, 30, 30, 35, 40, 40};
+        for (int i = 0; i < names.length; i++) {
+            personRepository.save(new PersonBuilder().name(names[i]).age(ages[i]).build());
+        }
+    }
+
+    @Test
+    public void should_page_through_all_rows_by_continuation() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 10)
+                .build();
+        Sort sort = Sorts.<Person>builder()
+                .desc("age")
+                .asc("name")
+                .build();
+
+        // when
+        List<Long> ids = new ArrayList<>();
+        KeysetSlice<Person> slice = personRepository.findSlice(specification, sort, 3);
+        int slices = 1;
+        ids.addAll(ids(slice.getContent()));
+        while (slice.hasNext()) {
+            slice = personRepository.findSlice(specification, sort, 3, slice.getContinuation());
+            ids.addAll(ids(slice.getContent()));
+            slices++;
+        }
+
+        // then
+        assertThat(slices).isEqualTo(4);
+        assertThat(slice.getContinuation()).isNull();
+        assertThat(ids).isEqualTo(ids(personRepository.findAll(specification, sort.and(Sort.by("id")))));
+    }
+
+    @Test
+    public void should_page_by_last_keys_with_lambda_sort() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .ge("age", 20)
+                .compile();
+        Sort sort = Sorts.<Person>builder()
+                .lambda()
+                .asc(Person::getName)
+                .build();
+
+        // when
+        KeysetSlice<Person> first = personRepository.findSlice(specification, sort, 4);
+        KeysetSlice<Person> second = personRepository.findSlice(specification, sort, 4, first.getKeys());
+
+        // then
+        assertThat(first.getContent()).extracting(Person::getName).containsExactly("Alex", "Bob", "Lily", "Lucy");
+        assertThat(first.getKeys()).hasSize(2);
+        assertThat(second.getContent()).extracting(Person::getName).containsExactly("Mike", "Same", "Same", "Same");
+        assertThat(second.hasNext()).isTrue();
+    }
+
+    @Test
+    public void should_reject_invalid_continuation() {
+        // given
+        Sort sort = Sort.by("age");
+
+        // then
+        assertThatThrownBy(() -> personRepository.findSlice(null, sort, 3, "not-a-token"))
+                .hasRootCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void should_seek_by_lower_case_when_sort_ignores_case() {
+        // given
+        personRepository.save(new PersonBuilder().name("adam").age(50).build());
+        personRepository.save(new PersonBuilder().name("bob").age(50).build());
+        Specification<Person> specification = Specifications.<Person>and()
+                .ge("age", 40)
+                .build();
+        Sort sort = Sort.by(Sort.Order.asc("name").ignoreCase());
+
+        // when
+        KeysetSlice<Person> first = personRepository.findSlice(specification, sort, 2);
+        KeysetSlice<Person> second = personRepository.findSlice(specification, sort, 2, first.getContinuation());
+
+        // then
+        assertThat(first.getContent()).extracting(Person::getName).containsExactly("adam", "bob");
+        assertThat(second.getContent()).extracting(Person::getName).containsExactly("Lily", "Mike");
+    }
+
+    @Test
+    public void should_reject_sort_with_null_handling() {
+        // given
+        Sort sort = Sort.by(Sort.Order.asc("name").nullsFirst());
+
+        // then
+        assertThatThrownBy(() -> personRepository.findSlice(null, sort, 3))
+                .hasMessageContaining("Keyset pagination does not support null handling");
+    }
+
+    @Test
+    public void should_keep_timestamp_nanos_in_continuation() {
+        // given
+        personRepository.save(new PersonBuilder().name("First").birthday(Timestamp.valueOf("2000-01-01 00:00:00.000001")).build());
+        personRepository.save(new PersonBuilder().name("Second").birthday(Timestamp.valueOf("2000-01-01 00:00:00.000002")).build());
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("birthday", Timestamp.valueOf("1999-12-31 00:00:00"))
+                .build();
+        Sort sort = Sort.by("birthday");
+
+        // when
+        KeysetSlice<Person> first = personRepository.findSlice(specification, sort, 1);
+        KeysetSlice<Person> second = personRepository.findSlice(specification, sort, 1, first.getContinuation());
+
+        // then
+        assertThat(first.getContent()).extracting(Person::getName).containsExactly("First");
+        assertThat(second.getContent()).extracting(Person::getName).containsExactly("Second");
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).collect(Collectors.toList());
+    }
+}
@@ -65,4 +65,21 @@ public class LikeTest {
         assertThat(persons.size()).isEqualTo(2);
     }
 
+    @Test
+    public void should_keep_null_pattern_as_like() {
+        // given
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+
+        // when
+        Specification<Person> nullPattern = Specifications.<Person>and()
+                .like("nickName", (String) null)
+                .build();
+        Specification<Person> nullPatterns = Specifications.<Person>and()
+                .like("nickName", (String[]) null)
+                .build();
+
+        // then
+        assertThat(personRepository.findAll(nullPattern)).isEmpty();
+        assertThat(personRepository.findAll(nullPatterns)).hasSize(1);
+    }
 }
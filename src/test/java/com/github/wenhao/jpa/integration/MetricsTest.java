@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.listener.SpecificationListeners;
+import com.github.wenhao.jpa.listener.SpecificationMetrics;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class MetricsTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private SpecificationMetrics metrics;
+
+    @BeforeEach
+    public void setUp() {
+        metrics = new SpecificationMetrics();
+        SpecificationListeners.register(metrics);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SpecificationListeners.unregister(metrics);
+    }
+
+    @Test
+    public void should_report_build_render_and_execution() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .build();
+        personRepository.save(jack);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("name", Arrays.asList("Jack", "Eric", "Jackson"))
+                .eq("phones.brand", "HuaWei")
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+        assertThat(metrics.getBuildNanos().getCount()).isEqualTo(1);
+        assertThat(metrics.getRenderNanos().getCount()).isEqualTo(1);
+        assertThat(metrics.getPredicates().getMax()).isEqualTo(2);
+        assertThat(metrics.getJoins().getMax()).isGreaterThanOrEqualTo(1);
+        assertThat(metrics.getInListSizes().getMax()).isEqualTo(3);
+        assertThat(metrics.getExecuteNanos()).containsKey("findAll");
+        assertThat(metrics.getExecuteNanos().get("findAll").getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void should_not_report_after_unregister() {
+        // given
+        SpecificationListeners.unregister(metrics);
+
+        // when
+        personRepository.findAll(Specifications.<Person>and().eq("name", "Jack").build());
+
+        // then
+        assertThat(SpecificationListeners.isEnabled()).isFalse();
+        assertThat(metrics.getBuildNanos().getCount()).isZero();
+        assertThat(metrics.getExecuteNanos()).isEmpty();
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.ComposedSpecification;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.specification.BetweenSpecification;
+import com.github.wenhao.jpa.specification.EqualSpecification;
+import com.github.wenhao.jpa.specification.GtSpecification;
+import com.github.wenhao.jpa.specification.LeSpecification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:optimize;COLLATION=ENGLISH")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OptimizeTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.save(new PersonBuilder().name("Jack").nickName("J").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        personRepository.save(new PersonBuilder().name("Jackson").nickName("JS").age(30).build());
+        personRepository.save(new PersonBuilder().name("Tom").nickName("T").age(40).build());
+    }
+
+    @Test
+    public void should_flatten_and_remove_duplicates() {
+        // given
+        Function<Boolean, Specification<Person>> specification = optimize -> Specifications.<Person>and()
+                .optimize(optimize)
+                .like("name", "Jack%")
+                .like("name", "Jack%")
+                .predicate(Specifications.and()
+                        .gt("age", 10)
+                        .predicate(Specifications.and()
+                                .gt("age", 10)
+                                .build())
+                        .build())
+                .build();
+
+        // then
+        assertSameResults(specification);
+        assertThat(specifications(specification.apply(true))).hasSize(2);
+    }
+
+    @Test
+    public void should_merge_ranges_into_between() {
+        // given
+        Function<Boolean, Specification<Person>> specification = optimize -> Specifications.<Person>and()
+                .optimize(optimize)
+                .ge("age", 18)
+                .gt("age", 10)
+                .le("age", 30)
+                .lt("age", 35)
+                .build();
+
+        // then
+        assertSameResults(specification);
+        List<Specification<Person>> specifications = specifications(specification.apply(true));
+        assertThat(specifications).hasSize(1);
+        BetweenSpecification<Person> between = (BetweenSpecification<Person>) specifications.get(0);
+        assertThat(between.getLower()).isEqualTo(18);
+        assertThat(between.getUpper()).isEqualTo(30);
+    }
+
+    @Test
+    public void should_keep_exclusive_bound_when_merging_ranges() {
+        // given
+        Function<Boolean, Specification<Person>> specification = optimize -> Specifications.<Person>and()
+                .optimize(optimize)
+                .ge("age", 18)
+                .gt("age", 18)
+                .between("age", 10, 30)
+                .build();
+
+        // then
+        assertSameResults(specification);
+        assertThat(specifications(specification.apply(true)))
+                .extracting(Object::getClass)
+                .containsExactly(GtSpecification.class, LeSpecification.class);
+    }
+
+    @Test
+    public void should_keep_string_bounds_ordered_by_database_collation() {
+        // given
+        personRepository.save(new PersonBuilder().name("alex").age(25).build());
+        // 英文排序规则下 "a" < "B"，Java 中 "B" < "a"
+        Function<Boolean, Specification<Person>> specification = optimize -> Specifications.<Person>and()
+                .optimize(optimize)
+                .ge("name", "B")
+                .ge("name", "a")
+                .lt("name", "Z")
+                .lt("name", "u")
+                .build();
+
+        // then
+        assertSameResults(specification);
+        assertThat(ids(specification.apply(true))).hasSize(4);
+        assertThat(specifications(specification.apply(true))).hasSize(4);
+    }
+
+    @Test
+    public void should_merge_equals_in_or_into_in() {
+        // given
+        Function<Boolean, Specification<Person>> specification = optimize -> Specifications.<Person>or()
+                .optimize(optimize)
+                .eq("nickName", "J")
+                .eq("nickName", "T")
+                .eq("nickName", (Object) null)
+                .gt("age", 35)
+                .build();
+
+        // then
+        assertSameResults(specification);
+        List<Specification<Person>> specifications = specifications(specification.apply(true));
+        assertThat(specifications).hasSize(2);
+        assertThat(((EqualSpecification<Person>) specifications.get(0)).getValues()).containsExactly("J", "T", null);
+    }
+
+    @Test
+    public void should_fold_empty_predicate() {
+        // given
+        Specification<Person> and = Specifications.<Person>and()
+                .optimize(true)
+                .eq("name", "Jack")
+                .predicate(Specifications.or().build())
+                .build();
+        Specification<Person> or = Specifications.<Person>or()
+                .optimize(true)
+                .eq("name", "Jack")
+                .predicate(Specifications.and().build())
+                .build();
+
+        // then
+        assertThat(personRepository.findAll(and)).extracting(Person::getName).containsExactly("Jack");
+        assertThat(personRepository.findAll(or)).hasSize(4);
+    }
+
+    private void assertSameResults(Function<Boolean, Specification<Person>> specification) {
+        assertThat(ids(specification.apply(true))).isNotEmpty().isEqualTo(ids(specification.apply(false)));
+    }
+
+    private List<Long> ids(Specification<Person> specification) {
+        return personRepository.findAll(specification).stream()
+                .map(Person::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<Specification<Person>> specifications(Specification<Person> specification) {
+        return ((ComposedSpecification<Person>) specification).getSpecifications();
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.repository.SimpleSpecificationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ParallelPageTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    public void setUp() {
+        for (int age = 1; age <= 25; age++) {
+            personRepository.save(new PersonBuilder()
+                    .name("Person" + age)
+                    .age(age)
+                    .phone("apple", "139" + age)
+                    .build());
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    public void should_find_page_and_count_in_parallel() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 5)
+                .like("name", "Person%")
+                .build();
+        Pageable pageable = PageRequest.of(1, 8, Sort.by("age"));
+
+        // when
+        Page<Person> page = personRepository.findAllInParallel(specification, pageable);
+
+        // then
+        Page<Person> expected = personRepository.findAll(specification, pageable);
+        assertThat(page.getTotalElements()).isEqualTo(20);
+        assertThat(page.getTotalPages()).isEqualTo(3);
+        assertThat(page.getContent()).extracting(Person::getAge)
+                .containsExactlyElementsOf(expected.map(Person::getAge).getContent());
+    }
+
+    @Test
+    public void should_count_distinct_entities_when_fetching_collections() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("phones")
+                .le("age", 10)
+                .compile();
+
+        // when
+        Page<Person> page = personRepository.findAllInParallel(specification, PageRequest.of(0, 4, Sort.by("age")));
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(10);
+        assertThat(page.getContent()).extracting(Person::getAge).containsExactly(1, 2, 3, 4);
+        assertThat(page.getContent().get(0).getPhones()).hasSize(1);
+    }
+
+    @Test
+    public void should_return_empty_page_when_specification_is_unsatisfiable() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .in("name", Collections.emptyList())
+                .build();
+
+        // when
+        Page<Person> page = personRepository.findAllInParallel(specification, PageRequest.of(0, 10));
+
+        // then
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+    }
+
+    @Test
+    public void should_find_all_when_unpaged() {
+        // when
+        Page<Person> page = personRepository.findAllInParallel(null, Pageable.unpaged());
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(25);
+    }
+
+    @Test
+    public void should_query_in_read_only_transactions_of_context_transaction_manager() {
+        // given
+        Collection<Boolean> readOnly = new ConcurrentLinkedQueue<>();
+        Specification<Person> specification = (root, query, cb) -> {
+            readOnly.add(TransactionSynchronizationManager.isActualTransactionActive()
+                    && TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+            return cb.ge(root.get("age"), 20);
+        };
+        TransactionTemplate caller = new TransactionTemplate(transactionManager);
+        caller.setReadOnly(true);
+
+        // when
+        Page<Person> page = caller.execute(status -> personRepository.findAllInParallel(specification, PageRequest.of(0, 10)));
+
+        // then
+        assertThat(page.getTotalElements()).isEqualTo(6);
+        assertThat(readOnly).containsExactly(true, true);
+    }
+
+    @Test
+    public void should_reject_call_in_read_write_transaction() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and().eq("name", "Uncommitted").build();
+
+        // then
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            personRepository.saveAndFlush(new PersonBuilder().name("Uncommitted").age(30).build());
+            return personRepository.findAllInParallel(specification, PageRequest.of(0, 10));
+        })).hasRootCauseInstanceOf(IllegalStateException.class).hasMessageContaining("read-write transaction");
+        assertThat(personRepository.count()).isEqualTo(25);
+    }
+
+    @Test
+    public void should_require_transaction_manager() {
+        // given
+        SimpleSpecificationRepository<Person, Long> repository = new SimpleSpecificationRepository<>(
+                JpaEntityInformationSupport.getEntityInformation(Person.class, entityManager), entityManager);
+
+        // then
+        assertThatThrownBy(() -> repository.findAllInParallel(null, PageRequest.of(0, 10)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("SpecificationRepositoryFactoryBean");
+    }
+}
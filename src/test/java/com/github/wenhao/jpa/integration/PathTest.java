@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.specification.PropertyPaths;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.Metamodel;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+public class PathTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_resolve_path_into_cached_attribute_chain() {
+        // given
+        ManagedType<Person> person = entityManager.getEntityManager().getMetamodel().entity(Person.class);
+
+        // when
+        List<Attribute<?, ?>> attributes = PropertyPaths.resolve(person, "phones.person.name");
+
+        // then
+        assertThat(attributes).extracting(Attribute::getName).containsExactly("phones", "person", "name");
+        assertThat(PropertyPaths.resolve(person, "phones.person.name")).isSameAs(attributes);
+    }
+
+    @Test
+    public void should_fail_fast_on_invalid_path_when_building_with_domain_class() {
+        assertThatThrownBy(() -> Specifications.and(Person.class).eq("phones.brnad", "HuaWei").build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("no attribute [brnad]");
+        assertThatThrownBy(() -> Specifications.and(Person.class).eq("name.first", "Jack").build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("[name] is not an association");
+    }
+
+    @Test
+    public void should_validate_against_latest_registered_metamodel() {
+        // given
+        Metamodel metamodel = entityManager.getEntityManager().getMetamodel();
+        ManagedType<?> empty = proxy(ManagedType.class, (method, args) -> {
+            if (method.equals("getJavaType")) {
+                return Person.class;
+            }
+            throw new IllegalArgumentException("No attribute " + args[0]);
+        });
+        Metamodel restarted = proxy(Metamodel.class, (method, args) -> Collections.singleton(empty));
+
+        // when
+        PropertyPaths.register(restarted);
+
+        // then
+        try {
+            assertThatThrownBy(() -> PropertyPaths.validate(Person.class, Collections.singleton("name")))
+                    .hasMessageContaining("no attribute [name]");
+        } finally {
+            PropertyPaths.register(metamodel);
+        }
+        PropertyPaths.validate(Person.class, Collections.singleton("name"));
+    }
+
+    @Test
+    public void should_query_with_validated_deep_path() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .build();
+        jack.getPhones().forEach(phone -> phone.setPerson(jack));
+        personRepository.save(jack);
+
+        // when
+        Specification<Person> specification = Specifications.and(Person.class)
+                .eq("phones.person.name", "Jack")
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+
+    @Test
+    public void should_report_invalid_path_before_rendering_query() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("nickname", "Jack")
+                .build();
+
+        // then
+        assertThatThrownBy(() -> personRepository.findAll(specification))
+                .hasMessageContaining("no attribute [nickname] on [" + Person.class.getName() + "]");
+    }
+
+    @Test
+    public void should_validate_all_paths_before_joining_without_domain_class() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("phones.brand", "HuaWei")
+                .eq("idCard.nubmer", "1001")
+                .build();
+        CriteriaBuilder cb = entityManager.getEntityManager().getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+
+        // then
+        assertThatThrownBy(() -> specification.toPredicate(root, query, cb))
+                .hasMessageContaining("no attribute [nubmer]");
+        assertThat(root.getJoins()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <P> P proxy(Class<P> type, BiFunction<String, Object[], Object> handler) {
+        return (P) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return type.getSimpleName();
+                        default:
+                            return handler.apply(method.getName(), args);
+                    }
+                });
+    }
+}
@@ -0,0 +1,215 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Projection;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class ProjectionTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_project_into_bean() {
+        // given
+        save();
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 18)
+                .build();
+
+        // when
+        List<PersonName> names = personRepository.findAllProjected(specification, PersonName.class, Sort.by("age"));
+
+        // then
+        assertThat(names).extracting(PersonName::getName).containsExactly("Eric", "Alex");
+        assertThat(names).extracting(PersonName::getAge).containsExactly(20, 30);
+    }
+
+    @Test
+    public void should_project_into_constructor_by_getters() {
+        // given
+        save();
+        Projection<Person, PersonCard> projection = Projection.of(PersonCard.class, Person::getName, Person::isMarried);
+
+        // when
+        List<PersonCard> cards = personRepository.findAllProjected(null, projection, Sort.by("name"));
+
+        // then
+        assertThat(cards).extracting(card -> card.name + ":" + card.married)
+                .containsExactly("Alex:false", "Eric:false", "Jack:true");
+    }
+
+    @Test
+    public void should_project_into_columns() {
+        // given
+        save();
+        Specification<Person> specification = Specifications.<Person>and()
+                .like("name", "Ja%")
+                .compile();
+
+        // when
+        List<Object[]> rows = personRepository.findAllProjected(specification, Projection.columns("name", "idCard.number"), Sort.unsorted());
+        List<Object[]> ages = personRepository.findAllProjected(specification, Projection.<Person>columns(Person::getAge), Sort.unsorted());
+
+        // then
+        assertThat(rows).containsExactly(new Object[] {"Jack", "1001"});
+        assertThat(ages).containsExactly(new Object[] {18});
+    }
+
+    @Test
+    public void should_ignore_fetches_when_projecting() {
+        // given
+        save();
+        Specification<Person> specification = Specifications.<Person>and()
+                .fetch("idCard")
+                .fetch("phones")
+                .eq("name", "Jack")
+                .build();
+
+        // when
+        List<Object[]> rows = personRepository.findAllProjected(specification, Projection.columns("name", "idCard.number"), Sort.unsorted());
+
+        // then
+        assertThat(rows).containsExactly(new Object[] {"Jack", "1001"});
+    }
+
+    @Test
+    public void should_map_null_to_default_for_primitive_parameters() {
+        // given
+        personRepository.save(new PersonBuilder().name("Jack").build());
+
+        // when
+        List<PersonAge> ages = personRepository.findAllProjected(null, PersonAge.class, Sort.unsorted());
+        List<PersonAge> constructed = personRepository.findAllProjected(null, Projection.of(PersonAge.class, "age"), Sort.unsorted());
+
+        // then
+        assertThat(ages).extracting(PersonAge::getAge).containsExactly(0);
+        assertThat(constructed).extracting(PersonAge::getAge).containsExactly(0);
+    }
+
+    @Test
+    public void should_allocate_less_than_loading_entities() {
+        // given
+        for (int i = 0; i < 300; i++) {
+            personRepository.save(new PersonBuilder().name("Person" + i).nickName("Nick" + i).company("Company" + i).age(i).build());
+        }
+        entityManager.flush();
+        Projection<Person, PersonName> projection = Projection.of(PersonName.class);
+        loadEntities();
+        personRepository.findAllProjected(null, projection, Sort.unsorted());
+
+        // when
+        long entities = allocated(this::loadEntities);
+        long projected = allocated(() -> personRepository.findAllProjected(null, projection, Sort.unsorted()));
+
+        // then
+        assertThat(projected).isLessThan(entities);
+    }
+
+    private void loadEntities() {
+        entityManager.clear();
+        personRepository.findAll((Specification<Person>) null);
+    }
+
+    private static long allocated(Runnable runnable) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long start = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 5; i++) {
+            runnable.run();
+        }
+        return threads.getCurrentThreadAllocatedBytes() - start;
+    }
+
+    private void save() {
+        personRepository.save(new PersonBuilder().name("Jack").age(18).married(true).idCard("1001").build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        personRepository.save(new PersonBuilder().name("Alex").age(30).build());
+    }
+
+    public static class PersonName {
+        private String name;
+        private Integer age;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+    }
+
+    public static class PersonAge {
+        private int age;
+
+        public PersonAge() {
+        }
+
+        public PersonAge(int age) {
+            this.age = age;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+
+    public static class PersonCard {
+        private final String name;
+        private final boolean married;
+
+        public PersonCard(String name, boolean married) {
+            this.name = name;
+            this.married = married;
+        }
+    }
+}
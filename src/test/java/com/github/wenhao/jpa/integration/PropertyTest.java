@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Sorts;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.model.PersonFields;
+import com.github.wenhao.jpa.model.Phone;
+import com.github.wenhao.jpa.model.PhoneFields;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.repository.PhoneRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class PropertyTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private PhoneRepository phoneRepository;
+
+    @Test
+    public void should_generate_property_constants_with_cascade_paths() {
+        assertThat(PersonFields.name.getFieldName(".")).isEqualTo("name");
+        assertThat(PhoneFields.person.name.getFieldName(".")).isEqualTo("person.name");
+        assertThat(PhoneFields.person.idCard().number.getFieldName(".")).isEqualTo("person.idCard.number");
+        assertThat(PersonFields.phones.brand.getFieldName(".")).isEqualTo("phones.brand");
+        assertThat(PhoneFields.person.with(Person::getNickName).getFieldName(".")).isEqualTo("person.nickName");
+        assertThat(PhoneFields.person.name.getFields()).extracting("name").containsExactly("person", "name");
+    }
+
+    @Test
+    public void should_query_by_generated_cascade_constants() {
+        // given
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("iPhone", "139000000000")
+                .phone("HuaWei", "13600000000")
+                .phone("HuaWei", "18000000000")
+                .build();
+        jack.getPhones().forEach(phone -> phone.setPerson(jack));
+        personRepository.save(jack);
+
+        // when
+        Specification<Phone> specification = Specifications.<Phone>and().lambda()
+                .eq(PhoneFields.brand, "HuaWei")
+                .eq(PhoneFields.person.name, "Jack")
+                .build();
+
+        List<Phone> phones = phoneRepository.findAll(specification);
+
+        // then
+        assertThat(phones).hasSize(2);
+    }
+
+    @Test
+    public void should_sort_by_generated_constants() {
+        // given
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        personRepository.save(new PersonBuilder().name("Alex").age(30).build());
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and().lambda()
+                .ge(PersonFields.age, 20)
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification, Sorts.<Person>builder().lambda().desc(PersonFields.age).build());
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Alex", "Eric");
+    }
+}
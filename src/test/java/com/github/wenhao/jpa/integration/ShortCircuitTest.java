@@ -0,0 +1,134 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Sorts;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import com.github.wenhao.jpa.specification.ContextualSpecification;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ShortCircuitTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        personRepository.flush();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    public void should_return_empty_results_without_query_when_in_is_empty() {
+        // given
+        Specification<Person> specification = Specifications.<Person>and()
+                .gt("age", 10)
+                .in("name", Collections.emptyList())
+                .build();
+
+        // when
+        Page<Person> page = personRepository.findAll(specification, PageRequest.of(0, 10));
+
+        // then
+        assertThat(ContextualSpecification.unsatisfiable(specification)).isTrue();
+        assertThat(personRepository.findAll(specification)).isEmpty();
+        assertThat(personRepository.findAll(specification, Sorts.<Person>builder().asc("name").build())).isEmpty();
+        assertThat(personRepository.findOne(specification)).isEmpty();
+        assertThat(personRepository.count(specification)).isZero();
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void should_return_empty_results_without_query_when_every_or_branch_is_empty() {
+        // given
+        Specification<Person> specification = Specifications.<Person>or()
+                .in("name", Collections.emptyList())
+                .predicate(Specifications.and()
+                        .eq("age")
+                        .build())
+                .build();
+
+        // when
+        long count = personRepository.count(specification);
+
+        // then
+        assertThat(count).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void should_query_when_specification_is_satisfiable() {
+        // given
+        Specification<Person> specification = Specifications.<Person>or()
+                .in("name", Collections.emptyList())
+                .eq("name", "Jack")
+                .build();
+        Specification<Person> notIn = Specifications.<Person>and()
+                .notIn("name", Collections.emptyList())
+                .build();
+
+        // then
+        assertThat(ContextualSpecification.unsatisfiable(specification)).isFalse();
+        assertThat(personRepository.findAll(specification)).extracting(Person::getName).containsExactly("Jack");
+        assertThat(personRepository.count(notIn)).isEqualTo(2);
+    }
+
+    @Test
+    public void should_drop_empty_in_from_or_when_optimized() {
+        // given
+        Specification<Person> specification = Specifications.<Person>or()
+                .optimize(true)
+                .in("name", Collections.emptyList())
+                .in("name", Arrays.asList("Jack", "Eric"))
+                .build();
+
+        // then
+        assertThat(personRepository.findAll(specification)).hasSize(2);
+    }
+}
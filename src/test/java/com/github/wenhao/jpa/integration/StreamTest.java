@@ -0,0 +1,132 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+public class StreamTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_stream_with_bounded_persistence_context() {
+        // given
+        for (int i = 0; i < 1000; i++) {
+            personRepository.save(new PersonBuilder().name("Person" + i).age(i % 50).build());
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Specification<Person> specification = Specifications.<Person>and()
+                .ge("age", 10)
+                .build();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+        AtomicInteger rows = new AtomicInteger();
+        AtomicInteger managed = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+
+        // when
+        try (Stream<Person> persons = personRepository.stream(specification, Sort.by("id"), 100)) {
+            persons.onClose(() -> closed.set(true))
+                    .forEach(person -> {
+                        rows.incrementAndGet();
+                        managed.set(Math.max(managed.get(), session.getStatistics().getEntityCount()));
+                    });
+        }
+
+        // then
+        assertThat(rows.get()).isEqualTo(800);
+        assertThat(managed.get()).isLessThanOrEqualTo(100);
+        assertThat(closed.get()).isTrue();
+    }
+
+    @Test
+    public void should_keep_other_managed_entities_and_their_changes() {
+        // given
+        for (int i = 0; i < 300; i++) {
+            personRepository.save(new PersonBuilder().name("Person" + i).age(20).build());
+        }
+        Person other = personRepository.save(new PersonBuilder().name("Jack").age(5).build());
+        entityManager.flush();
+        Specification<Person> specification = Specifications.<Person>and()
+                .ge("age", 10)
+                .build();
+
+        // when
+        try (Stream<Person> persons = personRepository.stream(specification, Sort.by("id"), 100)) {
+            // 游标打开后才修改，查询前的自动 flush 不会把它写入数据库
+            persons.forEach(person -> other.setName("Eric"));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        // then
+        assertThat(personRepository.findById(other.getId())).get().extracting(Person::getName).isEqualTo("Eric");
+    }
+
+    @Test
+    public void should_load_read_only_entities() {
+        // given
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        entityManager.flush();
+        entityManager.clear();
+        Session session = entityManager.getEntityManager().unwrap(Session.class);
+
+        // when
+        try (Stream<Person> persons = personRepository.stream(null, Sort.unsorted())) {
+            persons.forEach(person -> {
+                // then
+                assertThat(session.isReadOnly(person)).isTrue();
+            });
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void should_require_surrounding_transaction() {
+        assertThatThrownBy(() -> personRepository.stream(null, Sort.unsorted()))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.PredicateBuilder;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.specification.Fingerprint;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ThreadSafetyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 50;
+
+    private static final Specification<Person> SPECIFICATION = Specifications.<Person>and()
+            .in("name", Arrays.asList("Jack", "Eric", "Jackson"))
+            .predicate(Specifications.or()
+                    .lt("age", 19)
+                    .gt("age", 25)
+                    .build())
+            .build();
+
+    private static final Specification<Person> COMPILED = Specifications.<Person>and()
+            .like("name", "Jack%")
+            .ge("age", 18)
+            .compile();
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @BeforeEach
+    public void setUp() {
+        personRepository.save(new PersonBuilder().name("Jack").age(18).build());
+        personRepository.save(new PersonBuilder().name("Eric").age(20).build());
+        personRepository.save(new PersonBuilder().name("Jackson").age(30).build());
+        personRepository.save(new PersonBuilder().name("Tom").age(40).build());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        personRepository.deleteAll();
+    }
+
+    @Test
+    public void should_share_built_specification_between_threads() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> {
+                start.await();
+                for (int round = 0; round < ROUNDS; round++) {
+                    if (personRepository.findAll(SPECIFICATION).size() != 2
+                            || personRepository.count(COMPILED) != 2) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        }
+
+        // when
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Callable<Boolean> task : tasks) {
+            results.add(executor.submit(task));
+        }
+        start.countDown();
+
+        // then
+        for (Future<Boolean> result : results) {
+            assertThat(result.get(1, TimeUnit.MINUTES)).isTrue();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void should_not_change_built_specification_when_builder_changes() {
+        // given
+        PredicateBuilder<Person> builder = Specifications.<Person>and()
+                .like("name", "Jack%");
+        Specification<Person> specification = builder.build();
+
+        // when
+        builder.gt("age", 20);
+        builder.lambda().eq(Person::getName, "Jack");
+
+        // then
+        assertThat(personRepository.findAll(specification)).hasSize(2);
+        assertThat(personRepository.findAll(builder.build())).isEmpty();
+    }
+
+    @Test
+    public void should_share_flags_with_lambda_view() {
+        // given
+        List<String> names = Arrays.asList("Jack", "Eric", "Tom");
+        PredicateBuilder<Person> builder = Specifications.<Person>and()
+                .in("name", names);
+
+        // when
+        builder.lambda().inClausePadding(true);
+
+        // then
+        Fingerprint padded = Fingerprint.of(Specifications.<Person>and().in("name", names).inClausePadding(true).build());
+        assertThat(Fingerprint.of(builder.build())).isEqualTo(padded);
+        assertThat(personRepository.findAll(builder.build())).hasSize(3);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright © 2019, Wen Hao <wenhao@126.com>.
+ * <p>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.github.wenhao.jpa.integration;
+
+import com.github.wenhao.jpa.SpecificationWarmUp;
+import com.github.wenhao.jpa.Specifications;
+import com.github.wenhao.jpa.builder.PersonBuilder;
+import com.github.wenhao.jpa.model.Person;
+import com.github.wenhao.jpa.repository.PersonRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+public class WarmUpTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    public void should_walk_attribute_paths_of_configured_entities() {
+        // given
+        EntityManagerFactory entityManagerFactory = entityManager.getEntityManager().getEntityManagerFactory();
+        SpecificationWarmUp warmUp = new SpecificationWarmUp(entityManagerFactory).entities(Person.class).maxDepth(2);
+
+        // when
+        SpecificationWarmUp.Report report = warmUp.run();
+
+        // then
+        assertThat(report.getEntities()).isEqualTo(1);
+        assertThat(report.getTypes()).isEqualTo(4);
+        assertThat(report.getPaths()).isEqualTo(21);
+        assertThat(warmUp.getReport()).isSameAs(report);
+        assertThat(warmUp.run().getMethods()).isZero();
+    }
+
+    @Test
+    public void should_query_by_deep_path_after_warm_up() {
+        // given
+        new SpecificationWarmUp(entityManager.getEntityManager().getEntityManagerFactory()).run();
+        Person jack = new PersonBuilder()
+                .name("Jack")
+                .age(18)
+                .phone("HuaWei", "13600000000")
+                .build();
+        jack.getPhones().forEach(phone -> phone.setPerson(jack));
+        personRepository.save(jack);
+
+        // when
+        Specification<Person> specification = Specifications.<Person>and()
+                .eq("phones.person.name", "Jack")
+                .build();
+
+        List<Person> persons = personRepository.findAll(specification);
+
+        // then
+        assertThat(persons).extracting(Person::getName).containsExactly("Jack");
+    }
+}
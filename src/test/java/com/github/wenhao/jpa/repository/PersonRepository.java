@@ -22,8 +22,6 @@
 package com.github.wenhao.jpa.repository;
 
 import com.github.wenhao.jpa.model.Person;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
-public interface PersonRepository extends JpaRepository<Person, Long>, JpaSpecificationExecutor<Person> {
+public interface PersonRepository extends SpecificationRepository<Person, Long> {
 }